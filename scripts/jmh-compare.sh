@@ -0,0 +1,76 @@
+#!/usr/bin/env bash
+# =============================================
+# JMH 基准测试 + 基线对比
+#
+# 用法:
+#   scripts/jmh-compare.sh                 运行基准测试并与基线对比
+#   scripts/jmh-compare.sh --save-baseline 运行基准测试并保存为新基线
+#   JMH_INCLUDE=Snapshot scripts/jmh-compare.sh   只运行匹配的基准测试
+#
+# 基线保存在 benchmarks/baseline.json（建议在改动前于同一台机器上生成）
+# =============================================
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+BASELINE=benchmarks/baseline.json
+RESULT=target/jmh-result.json
+INCLUDE="${JMH_INCLUDE:-.*Benchmark.*}"
+THRESHOLD="${JMH_THRESHOLD:-10}"
+
+mkdir -p target benchmarks
+
+mvn -B -q -Pjmh test-compile exec:exec \
+    -Djmh.args="${INCLUDE} -prof gc -f 1 -wi 3 -i 5 -rf json -rff ${RESULT}"
+
+if [[ "${1:-}" == "--save-baseline" ]]; then
+    cp "${RESULT}" "${BASELINE}"
+    echo "基线已保存: ${BASELINE}"
+    exit 0
+fi
+
+if [[ ! -f "${BASELINE}" ]]; then
+    echo "没有基线文件 ${BASELINE}，先运行: scripts/jmh-compare.sh --save-baseline"
+    exit 1
+fi
+
+python3 - "${BASELINE}" "${RESULT}" "${THRESHOLD}" <<'PY'
+import json
+import sys
+
+baseline_path, result_path, threshold = sys.argv[1], sys.argv[2], float(sys.argv[3])
+
+
+def load(path):
+    rows = {}
+    for item in json.load(open(path)):
+        params = ",".join(f"{k}={v}" for k, v in sorted(item.get("params", {}).items()))
+        key = item["benchmark"].rsplit(".", 2)[-2] + "." + item["benchmark"].rsplit(".", 1)[-1]
+        if params:
+            key += f"[{params}]"
+        alloc = item.get("secondaryMetrics", {}).get("gc.alloc.rate.norm", {}).get("score")
+        rows[key] = (item["primaryMetric"]["score"], item["primaryMetric"]["scoreUnit"], alloc)
+    return rows
+
+
+baseline, current = load(baseline_path), load(result_path)
+regressions = 0
+print(f"{'benchmark':<60} {'baseline':>14} {'current':>14} {'delta':>8} {'alloc B/op':>22}")
+for key in sorted(current):
+    score, unit, alloc = current[key]
+    if key not in baseline:
+        print(f"{key:<60} {'-':>14} {score:>11.3f} {unit:<2} {'new':>8}")
+        continue
+    base_score, _, base_alloc = baseline[key]
+    delta = (score - base_score) / base_score * 100 if base_score else 0.0
+    flag = " !" if delta > threshold else ""
+    regressions += delta > threshold
+    alloc_text = "-"
+    if alloc is not None and base_alloc is not None:
+        alloc_text = f"{base_alloc:.0f} -> {alloc:.0f}"
+    print(f"{key:<60} {base_score:>14.3f} {score:>14.3f} {delta:>+7.1f}%{flag} {alloc_text:>22}")
+
+if regressions:
+    print(f"\n{regressions} 项基准测试慢于基线超过 {threshold:.0f}%")
+    sys.exit(2)
+PY
@@ -1,7 +1,7 @@
 -- =============================================
 -- 贷款管理系统 - 最终数据库结构
 -- 创建时间: 2025-11-19
--- 描述: 4表设计 + 视图 + 存储过程 + 触发器
+-- 描述: 7表设计 + 存储过程
 -- =============================================
 
 -- 设置字符集
@@ -53,6 +53,7 @@ CREATE TABLE repayment_schedule
     status      VARCHAR(20) DEFAULT 'pending'         NOT NULL COMMENT '状态: pending-待还, paid-已还, overdue-逾期',
     paid_date   DATE                                  NULL COMMENT '实际还款日期',
     paid_amount DECIMAL(10, 2)                        NULL COMMENT '实际还款金额',
+    version     INT         DEFAULT 0                 NOT NULL COMMENT '版本号(每次更新加一)',
     created_at  TIMESTAMP   DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '创建时间',
     updated_at  TIMESTAMP   DEFAULT CURRENT_TIMESTAMP NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     CONSTRAINT uk_loan_period UNIQUE (loan_id, period) COMMENT '同一贷款的期数唯一',
@@ -61,9 +62,9 @@ CREATE TABLE repayment_schedule
             ON UPDATE CASCADE ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='还款计划表-单一数据源';
 
-CREATE INDEX idx_due_date ON repayment_schedule (due_date);
+CREATE INDEX idx_due_status_cover ON repayment_schedule (due_date, status, loan_id, amount);
 CREATE INDEX idx_loan_status ON repayment_schedule (loan_id, status);
-CREATE INDEX idx_status ON repayment_schedule (status);
+CREATE INDEX idx_status_due ON repayment_schedule (status, due_date);
 
 -- =============================================
 -- 3. 还款记录表 (payment_record)
@@ -78,6 +79,7 @@ CREATE TABLE payment_record
     payment_date DATE                                  NOT NULL COMMENT '还款日期',
     payment_type VARCHAR(20) DEFAULT 'normal'          NULL COMMENT '还款类型: normal-正常还款, early-提前还款, extra-额外还款',
     note         TEXT                                  NULL COMMENT '备注',
+    idempotency_key VARCHAR(64)                        NULL COMMENT '幂等键(客户端生成，同一键只记录一次)',
     created_at   TIMESTAMP   DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '创建时间',
     CONSTRAINT payment_record_ibfk_1
         FOREIGN KEY (loan_id) REFERENCES loan (id)
@@ -88,16 +90,16 @@ CREATE TABLE payment_record
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='还款记录表-历史追踪';
 
 CREATE INDEX idx_loan_date ON payment_record (loan_id, payment_date);
-CREATE INDEX idx_payment_date ON payment_record (payment_date);
+CREATE INDEX idx_payment_date_cover ON payment_record (payment_date, loan_id, amount);
 CREATE INDEX idx_schedule_id ON payment_record (schedule_id);
+CREATE UNIQUE INDEX uk_idempotency_key ON payment_record (idempotency_key);
 
 -- =============================================
 -- 4. 负债快照表 (debt_snapshot)
 -- =============================================
 CREATE TABLE debt_snapshot
 (
-    id               BIGINT AUTO_INCREMENT COMMENT '主键ID'
-        PRIMARY KEY,
+    id               BIGINT AUTO_INCREMENT                    NOT NULL COMMENT '主键ID',
     snapshot_date    DATE                                     NOT NULL COMMENT '快照日期',
     total_debt       DECIMAL(12, 2)                           NOT NULL COMMENT '总负债(所有未还金额)',
     total_principal  DECIMAL(12, 2) DEFAULT 0.00              NULL COMMENT '总本金',
@@ -106,55 +108,98 @@ CREATE TABLE debt_snapshot
     active_loans     INT            DEFAULT 0                 NULL COMMENT '活跃贷款数量',
     completed_loans  INT            DEFAULT 0                 NULL COMMENT '已结清贷款数量',
     monthly_payment  DECIMAL(10, 2) DEFAULT 0.00              NULL COMMENT '月还款总额',
-    snapshot_type    VARCHAR(10)    DEFAULT 'daily'           NOT NULL COMMENT '快照类型: daily-每日, monthly-每月',
+    snapshot_type    VARCHAR(10)    DEFAULT 'daily'           NOT NULL COMMENT '快照类型: daily-每日, weekly-每周, monthly-每月',
     created_at       TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '创建时间',
+    PRIMARY KEY (id, snapshot_date) COMMENT '分区表的唯一键必须包含分区列',
     CONSTRAINT uk_date_type UNIQUE (snapshot_date, snapshot_type) COMMENT '同一天同类型只有一条记录'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='负债快照表-用于趋势分析';
 
+-- 按月 RANGE 分区（与迁移 004 相同）：分区按建表当天生成，p_history 收纳本月之前的数据，
+-- 本月及之后 3 个月各一个分区，p_future 兜底；之后由快照保留任务拆出未来月份、删除过期分区
+SET @m0 = DATE_FORMAT(CURDATE(), '%Y-%m-01');
+SET @m1 = DATE_FORMAT(DATE_ADD(@m0, INTERVAL 1 MONTH), '%Y-%m-01');
+SET @m2 = DATE_FORMAT(DATE_ADD(@m0, INTERVAL 2 MONTH), '%Y-%m-01');
+SET @m3 = DATE_FORMAT(DATE_ADD(@m0, INTERVAL 3 MONTH), '%Y-%m-01');
+SET @m4 = DATE_FORMAT(DATE_ADD(@m0, INTERVAL 4 MONTH), '%Y-%m-01');
+
+SET @ddl = CONCAT(
+    'ALTER TABLE debt_snapshot PARTITION BY RANGE COLUMNS (snapshot_date) (',
+    'PARTITION p_history VALUES LESS THAN (''', @m0, '''), ',
+    'PARTITION p', DATE_FORMAT(@m0, '%Y%m'), ' VALUES LESS THAN (''', @m1, '''), ',
+    'PARTITION p', DATE_FORMAT(@m1, '%Y%m'), ' VALUES LESS THAN (''', @m2, '''), ',
+    'PARTITION p', DATE_FORMAT(@m2, '%Y%m'), ' VALUES LESS THAN (''', @m3, '''), ',
+    'PARTITION p', DATE_FORMAT(@m3, '%Y%m'), ' VALUES LESS THAN (''', @m4, '''), ',
+    'PARTITION p_future VALUES LESS THAN (MAXVALUE))'
+);
+
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
 CREATE INDEX idx_snapshot_date ON debt_snapshot (snapshot_date);
 CREATE INDEX idx_snapshot_type ON debt_snapshot (snapshot_type);
 
 -- =============================================
--- 视图：贷款统计视图
+-- 5. 负债累计值表 (debt_totals)
 -- =============================================
-CREATE OR REPLACE VIEW v_loan_statistics AS
-SELECT 
-    l.id                                                                   AS id,
-    l.name                                                                 AS name,
-    l.platform                                                             AS platform,
-    l.principal                                                            AS principal,
-    l.monthly_amount                                                       AS monthly_amount,
-    l.total_periods                                                        AS total_periods,
-    l.payment_day                                                          AS payment_day,
-    l.start_date                                                           AS start_date,
-    l.status                                                               AS status,
-    COUNT(s.id)                                                            AS total_schedule_count,
-    SUM(CASE WHEN s.status = 'paid' THEN 1 ELSE 0 END)                    AS paid_periods,
-    SUM(CASE WHEN s.status = 'pending' THEN 1 ELSE 0 END)                 AS pending_periods,
-    SUM(CASE WHEN s.status = 'overdue' THEN 1 ELSE 0 END)                 AS overdue_periods,
-    SUM(CASE WHEN s.status = 'paid' THEN s.paid_amount ELSE 0 END)        AS total_paid_amount,
-    SUM(CASE WHEN s.status <> 'paid' THEN s.amount ELSE 0 END)            AS remaining_amount,
-    MAX(s.due_date)                                                        AS last_due_date,
-    MIN(CASE WHEN s.status <> 'paid' THEN s.due_date END)                 AS next_due_date
-FROM loan l
-LEFT JOIN repayment_schedule s ON l.id = s.loan_id
-GROUP BY l.id;
+CREATE TABLE debt_totals
+(
+    id               TINYINT                                  NOT NULL COMMENT '主键(固定为1)'
+        PRIMARY KEY,
+    total_principal  DECIMAL(14, 2) DEFAULT 0.00              NOT NULL COMMENT '总本金',
+    paid_amount      DECIMAL(14, 2) DEFAULT 0.00              NOT NULL COMMENT '已还总额',
+    remaining_amount DECIMAL(14, 2) DEFAULT 0.00              NOT NULL COMMENT '剩余总额(活跃贷款的未还金额)',
+    monthly_payment  DECIMAL(12, 2) DEFAULT 0.00              NOT NULL COMMENT '月还款总额',
+    active_loans     INT            DEFAULT 0                 NOT NULL COMMENT '活跃贷款数量',
+    completed_loans  INT            DEFAULT 0                 NOT NULL COMMENT '已结清贷款数量',
+    updated_at       TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='负债累计值-增量维护';
+
+-- 空库的累计值全为 0，预先写入累计行，写操作只做增量调整
+INSERT INTO debt_totals (id) VALUES (1);
 
 -- =============================================
--- 触发器：自动更新逾期状态
+-- 6. 负债快照汇总表 (debt_snapshot_rollup)
 -- =============================================
-DELIMITER $$
-
-CREATE TRIGGER tr_update_overdue_status
-BEFORE UPDATE ON repayment_schedule
-FOR EACH ROW
-BEGIN
-    IF NEW.status = 'pending' AND NEW.due_date < CURDATE() THEN
-        SET NEW.status = 'overdue';
-    END IF;
-END$$
+CREATE TABLE debt_snapshot_rollup
+(
+    resolution           VARCHAR(10)                              NOT NULL COMMENT '粒度: weekly-按周(周一开始), monthly-按月',
+    period_start         DATE                                     NOT NULL COMMENT '周期开始日期',
+    period_end           DATE                                     NOT NULL COMMENT '周期内最后一个快照的日期',
+    sample_count         INT            DEFAULT 0                 NOT NULL COMMENT '周期内快照天数',
+    total_debt           DECIMAL(12, 2)                           NOT NULL COMMENT '期末总负债',
+    total_principal      DECIMAL(12, 2) DEFAULT 0.00              NULL COMMENT '期末总本金',
+    paid_amount          DECIMAL(12, 2) DEFAULT 0.00              NULL COMMENT '期末已还总额',
+    remaining_amount     DECIMAL(12, 2)                           NOT NULL COMMENT '期末剩余总额',
+    min_remaining_amount DECIMAL(12, 2)                           NOT NULL COMMENT '周期内最小剩余总额',
+    max_remaining_amount DECIMAL(12, 2)                           NOT NULL COMMENT '周期内最大剩余总额',
+    active_loans         INT            DEFAULT 0                 NULL COMMENT '期末活跃贷款数量',
+    completed_loans      INT            DEFAULT 0                 NULL COMMENT '期末已结清贷款数量',
+    monthly_payment      DECIMAL(10, 2) DEFAULT 0.00              NULL COMMENT '期末月还款总额',
+    updated_at           TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (resolution, period_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='负债快照按周/按月汇总-用于长周期趋势';
 
-DELIMITER ;
+-- =============================================
+-- 7. 贷款统计表 (loan_statistics)
+-- =============================================
+CREATE TABLE loan_statistics
+(
+    loan_id              BIGINT                                   NOT NULL COMMENT '贷款ID'
+        PRIMARY KEY,
+    total_schedule_count INT            DEFAULT 0                 NOT NULL COMMENT '计划总期数',
+    paid_periods         INT            DEFAULT 0                 NOT NULL COMMENT '已还期数',
+    pending_periods      INT            DEFAULT 0                 NOT NULL COMMENT '待还期数',
+    overdue_periods      INT            DEFAULT 0                 NOT NULL COMMENT '逾期期数',
+    total_paid_amount    DECIMAL(12, 2) DEFAULT 0.00              NOT NULL COMMENT '已还总额(实还金额，缺失时取应还金额)',
+    remaining_amount     DECIMAL(12, 2) DEFAULT 0.00              NOT NULL COMMENT '剩余金额(待还+逾期)',
+    last_due_date        DATE                                     NULL COMMENT '最后一期应还日期',
+    next_due_date        DATE                                     NULL COMMENT '下次应还日期(最早的未还计划)',
+    updated_at           TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    CONSTRAINT loan_statistics_ibfk_1
+        FOREIGN KEY (loan_id) REFERENCES loan (id)
+            ON UPDATE CASCADE ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='贷款统计-按贷款增量维护';
 
 -- =============================================
 -- 存储过程：生成还款计划
@@ -257,9 +302,7 @@ DELIMITER ;
 -- 完成提示
 -- =============================================
 SELECT '✅ 数据库结构创建完成！' AS message;
-SELECT '📊 已创建 4 张表: loan, repayment_schedule, payment_record, debt_snapshot' AS info;
-SELECT '👁️ 已创建视图: v_loan_statistics' AS info;
+SELECT '📊 已创建 7 张表: loan, repayment_schedule, payment_record, debt_snapshot, debt_totals, debt_snapshot_rollup, loan_statistics' AS info;
 SELECT '🔧 已创建存储过程: sp_generate_repayment_schedule, sp_create_daily_snapshot' AS info;
-SELECT '⚡ 已创建触发器: tr_update_overdue_status' AS info;
 
 SHOW TABLES;
@@ -0,0 +1,50 @@
+-- =============================================
+-- 迁移 001: 负债累计值表
+-- 描述: 随业务写操作按增量维护的负债累计值，每日快照直接复制该行
+-- =============================================
+
+SET NAMES utf8mb4;
+
+USE loans;
+
+CREATE TABLE IF NOT EXISTS debt_totals
+(
+    id               TINYINT                                  NOT NULL COMMENT '主键(固定为1)'
+        PRIMARY KEY,
+    total_principal  DECIMAL(14, 2) DEFAULT 0.00              NOT NULL COMMENT '总本金',
+    paid_amount      DECIMAL(14, 2) DEFAULT 0.00              NOT NULL COMMENT '已还总额',
+    remaining_amount DECIMAL(14, 2) DEFAULT 0.00              NOT NULL COMMENT '剩余总额(活跃贷款的未还金额)',
+    monthly_payment  DECIMAL(12, 2) DEFAULT 0.00              NOT NULL COMMENT '月还款总额',
+    active_loans     INT            DEFAULT 0                 NOT NULL COMMENT '活跃贷款数量',
+    completed_loans  INT            DEFAULT 0                 NOT NULL COMMENT '已结清贷款数量',
+    updated_at       TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='负债累计值-增量维护';
+
+-- 用现有数据初始化累计行（与 DebtTotalsService.recompute 相同的聚合口径），之后只按增量调整；
+-- 重复执行时以全量计算结果覆盖，也可以调用 POST /api/snapshots/totals/rebuild 手动重建
+INSERT INTO debt_totals (
+    id, total_principal, paid_amount, remaining_amount, monthly_payment, active_loans, completed_loans
+)
+SELECT 1,
+       (SELECT COALESCE(SUM(principal), 0) FROM loan),
+       (SELECT COALESCE(SUM(COALESCE(s.paid_amount, s.amount)), 0)
+        FROM repayment_schedule s
+                 JOIN loan l ON l.id = s.loan_id
+        WHERE s.status = 'paid'),
+       (SELECT COALESCE(SUM(s.amount), 0)
+        FROM repayment_schedule s
+                 JOIN loan l ON l.id = s.loan_id
+        WHERE s.status <> 'paid'
+          AND l.status = 'active'),
+       (SELECT COALESCE(SUM(monthly_amount), 0) FROM loan WHERE status = 'active'),
+       (SELECT COUNT(*) FROM loan WHERE status = 'active'),
+       (SELECT COUNT(*) FROM loan WHERE status = 'completed')
+ON DUPLICATE KEY UPDATE
+    total_principal = VALUES(total_principal),
+    paid_amount = VALUES(paid_amount),
+    remaining_amount = VALUES(remaining_amount),
+    monthly_payment = VALUES(monthly_payment),
+    active_loans = VALUES(active_loans),
+    completed_loans = VALUES(completed_loans);
+
+SELECT '✅ 迁移 001 完成: debt_totals' AS message;
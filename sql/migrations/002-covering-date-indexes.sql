@@ -0,0 +1,22 @@
+-- =============================================
+-- 迁移 002: 日历/当日应还查询的覆盖索引
+-- 描述: findByMonth 改为半开区间查询后，按日期前缀的复合索引可以直接做范围扫描；
+--       (due_date, status, loan_id, amount) 覆盖日历汇总和当日待还查找，无需回表
+-- =============================================
+
+SET NAMES utf8mb4;
+
+USE loans;
+
+-- 还款计划：应还日期 + 状态 + 贷款 + 金额
+CREATE INDEX idx_due_status_cover ON repayment_schedule (due_date, status, loan_id, amount);
+
+-- 原单列索引已是新索引的前缀，删除以减少写入开销
+DROP INDEX idx_due_date ON repayment_schedule;
+
+-- 还款记录：还款日期 + 贷款 + 金额
+CREATE INDEX idx_payment_date_cover ON payment_record (payment_date, loan_id, amount);
+
+DROP INDEX idx_payment_date ON payment_record;
+
+SELECT '✅ 迁移 002 完成: 覆盖索引' AS message;
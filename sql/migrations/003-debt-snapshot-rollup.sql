@@ -0,0 +1,33 @@
+-- =============================================
+-- 迁移 003: 负债快照汇总表
+-- 描述: 按周、按月保存快照的期末值，长周期趋势图直接读取汇总行，
+--       不再把每天一行的快照全部传给前端
+-- =============================================
+
+SET NAMES utf8mb4;
+
+USE loans;
+
+CREATE TABLE IF NOT EXISTS debt_snapshot_rollup
+(
+    resolution           VARCHAR(10)                              NOT NULL COMMENT '粒度: weekly-按周(周一开始), monthly-按月',
+    period_start         DATE                                     NOT NULL COMMENT '周期开始日期',
+    period_end           DATE                                     NOT NULL COMMENT '周期内最后一个快照的日期',
+    sample_count         INT            DEFAULT 0                 NOT NULL COMMENT '周期内快照天数',
+    total_debt           DECIMAL(12, 2)                           NOT NULL COMMENT '期末总负债',
+    total_principal      DECIMAL(12, 2) DEFAULT 0.00              NULL COMMENT '期末总本金',
+    paid_amount          DECIMAL(12, 2) DEFAULT 0.00              NULL COMMENT '期末已还总额',
+    remaining_amount     DECIMAL(12, 2)                           NOT NULL COMMENT '期末剩余总额',
+    min_remaining_amount DECIMAL(12, 2)                           NOT NULL COMMENT '周期内最小剩余总额',
+    max_remaining_amount DECIMAL(12, 2)                           NOT NULL COMMENT '周期内最大剩余总额',
+    active_loans         INT            DEFAULT 0                 NULL COMMENT '期末活跃贷款数量',
+    completed_loans      INT            DEFAULT 0                 NULL COMMENT '期末已结清贷款数量',
+    monthly_payment      DECIMAL(10, 2) DEFAULT 0.00              NULL COMMENT '期末月还款总额',
+    updated_at           TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (resolution, period_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='负债快照按周/按月汇总-用于长周期趋势';
+
+-- 不在此处回填数据：执行后调用 POST /api/snapshots/rollups/rebuild 从现有快照生成，
+-- 之后随快照创建、历史重新生成自动维护
+
+SELECT '✅ 迁移 003 完成: debt_snapshot_rollup' AS message;
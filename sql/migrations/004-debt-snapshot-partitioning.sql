@@ -0,0 +1,42 @@
+-- =============================================
+-- 迁移 004: 负债快照按月分区
+-- 描述: debt_snapshot 按 snapshot_date 做 RANGE 分区（每月一个分区，初始分区按部署日期生成），
+--       日期范围查询只扫描相关分区，超出保留期的整月数据直接 DROP PARTITION，
+--       不再逐行 DELETE。分区表的唯一键必须包含分区列，主键改为 (id, snapshot_date)。
+-- =============================================
+
+SET NAMES utf8mb4;
+
+USE loans;
+
+ALTER TABLE debt_snapshot
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, snapshot_date);
+
+-- 分区按部署当天生成：p_history 收纳本月之前的数据，本月及之后 3 个月（与 months-ahead 默认值一致）各一个分区，
+-- p_future 兜底；之后由快照保留任务（SnapshotRetentionService）每天从 p_future 拆出未来月份、删除过期分区
+SET @m0 = DATE_FORMAT(CURDATE(), '%Y-%m-01');
+SET @m1 = DATE_FORMAT(DATE_ADD(@m0, INTERVAL 1 MONTH), '%Y-%m-01');
+SET @m2 = DATE_FORMAT(DATE_ADD(@m0, INTERVAL 2 MONTH), '%Y-%m-01');
+SET @m3 = DATE_FORMAT(DATE_ADD(@m0, INTERVAL 3 MONTH), '%Y-%m-01');
+SET @m4 = DATE_FORMAT(DATE_ADD(@m0, INTERVAL 4 MONTH), '%Y-%m-01');
+
+SET @ddl = CONCAT(
+    'ALTER TABLE debt_snapshot PARTITION BY RANGE COLUMNS (snapshot_date) (',
+    'PARTITION p_history VALUES LESS THAN (''', @m0, '''), ',
+    'PARTITION p', DATE_FORMAT(@m0, '%Y%m'), ' VALUES LESS THAN (''', @m1, '''), ',
+    'PARTITION p', DATE_FORMAT(@m1, '%Y%m'), ' VALUES LESS THAN (''', @m2, '''), ',
+    'PARTITION p', DATE_FORMAT(@m2, '%Y%m'), ' VALUES LESS THAN (''', @m3, '''), ',
+    'PARTITION p', DATE_FORMAT(@m3, '%Y%m'), ' VALUES LESS THAN (''', @m4, '''), ',
+    'PARTITION p_future VALUES LESS THAN (MAXVALUE))'
+);
+
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 验证分区: SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS
+--           WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'debt_snapshot';
+-- 本月内的日期范围查询 EXPLAIN 时，partitions 列应只有本月分区
+
+SELECT '✅ 迁移 004 完成: debt_snapshot 按月分区' AS message;
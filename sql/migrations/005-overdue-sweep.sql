@@ -0,0 +1,19 @@
+-- =============================================
+-- 迁移 005: 逾期状态改由应用定时扫描维护
+-- 描述: 原 BEFORE UPDATE 触发器只在行被更新时才会把过期的待还计划改为逾期，未被更新的行一直停留在 pending；
+--       改为应用每天按 (status, due_date) 索引区间分批标记，触发器删除后普通更新不再逐行执行触发器
+-- =============================================
+
+SET NAMES utf8mb4;
+
+USE loans;
+
+DROP TRIGGER IF EXISTS tr_update_overdue_status;
+
+-- 待还 + 应还日期：逾期扫描按 status = 'pending' AND due_date < 今天 做区间查找，只读到需要标记的行
+CREATE INDEX idx_status_due ON repayment_schedule (status, due_date);
+
+-- 原单列索引已是新索引的前缀，删除以减少写入开销
+DROP INDEX idx_status ON repayment_schedule;
+
+SELECT '✅ 迁移 005 完成: 逾期扫描索引，删除逾期触发器' AS message;
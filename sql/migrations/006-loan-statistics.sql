@@ -0,0 +1,50 @@
+-- =============================================
+-- 迁移 006: 贷款统计表
+-- 描述: 每笔贷款的已还/待还/逾期期数、剩余金额、下次应还日期，随写操作在同一事务内按贷款刷新；
+--       替代每次读取都要 loan LEFT JOIN repayment_schedule GROUP BY 全表聚合的 v_loan_statistics 视图
+-- =============================================
+
+SET NAMES utf8mb4;
+
+USE loans;
+
+CREATE TABLE IF NOT EXISTS loan_statistics
+(
+    loan_id              BIGINT                                   NOT NULL COMMENT '贷款ID'
+        PRIMARY KEY,
+    total_schedule_count INT            DEFAULT 0                 NOT NULL COMMENT '计划总期数',
+    paid_periods         INT            DEFAULT 0                 NOT NULL COMMENT '已还期数',
+    pending_periods      INT            DEFAULT 0                 NOT NULL COMMENT '待还期数',
+    overdue_periods      INT            DEFAULT 0                 NOT NULL COMMENT '逾期期数',
+    total_paid_amount    DECIMAL(12, 2) DEFAULT 0.00              NOT NULL COMMENT '已还总额(实还金额，缺失时取应还金额)',
+    remaining_amount     DECIMAL(12, 2) DEFAULT 0.00              NOT NULL COMMENT '剩余金额(待还+逾期)',
+    last_due_date        DATE                                     NULL COMMENT '最后一期应还日期',
+    next_due_date        DATE                                     NULL COMMENT '下次应还日期(最早的未还计划)',
+    updated_at           TIMESTAMP      DEFAULT CURRENT_TIMESTAMP NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    CONSTRAINT loan_statistics_ibfk_1
+        FOREIGN KEY (loan_id) REFERENCES loan (id)
+            ON UPDATE CASCADE ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='贷款统计-按贷款增量维护';
+
+-- 从现有数据生成（之后也可以调用 POST /api/loans/statistics/rebuild 全量重建）
+INSERT INTO loan_statistics (
+    loan_id, total_schedule_count, paid_periods, pending_periods, overdue_periods,
+    total_paid_amount, remaining_amount, last_due_date, next_due_date
+)
+SELECT
+    l.id,
+    COUNT(s.id),
+    COALESCE(SUM(CASE WHEN s.status = 'paid' THEN 1 ELSE 0 END), 0),
+    COALESCE(SUM(CASE WHEN s.status = 'pending' THEN 1 ELSE 0 END), 0),
+    COALESCE(SUM(CASE WHEN s.status = 'overdue' THEN 1 ELSE 0 END), 0),
+    COALESCE(SUM(CASE WHEN s.status = 'paid' THEN COALESCE(s.paid_amount, s.amount) ELSE 0 END), 0),
+    COALESCE(SUM(CASE WHEN s.status <> 'paid' THEN s.amount ELSE 0 END), 0),
+    MAX(s.due_date),
+    MIN(CASE WHEN s.status <> 'paid' THEN s.due_date END)
+FROM loan l
+LEFT JOIN repayment_schedule s ON l.id = s.loan_id
+GROUP BY l.id;
+
+DROP VIEW IF EXISTS v_loan_statistics;
+
+SELECT '✅ 迁移 006 完成: loan_statistics' AS message;
@@ -0,0 +1,20 @@
+-- =============================================
+-- 迁移 007: 还款计划版本号与还款记录幂等键
+-- 描述: 记录还款改为一条条件 UPDATE（status <> 'paid' 且版本一致），version 每次更新加一，
+--       客户端可带上读到的版本做乐观并发控制；payment_record 增加幂等键唯一索引，重复提交不会生成重复记录
+-- =============================================
+
+SET NAMES utf8mb4;
+
+USE loans;
+
+ALTER TABLE repayment_schedule
+    ADD COLUMN version INT DEFAULT 0 NOT NULL COMMENT '版本号(每次更新加一)' AFTER paid_amount;
+
+ALTER TABLE payment_record
+    ADD COLUMN idempotency_key VARCHAR(64) NULL COMMENT '幂等键(客户端生成，同一键只记录一次)' AFTER note;
+
+-- 唯一索引允许多个 NULL，未带幂等键的记录（自动结算、旧数据）不受影响
+CREATE UNIQUE INDEX uk_idempotency_key ON payment_record (idempotency_key);
+
+SELECT '✅ 迁移 007 完成: 还款计划版本号，还款记录幂等键' AS message;
@@ -0,0 +1,95 @@
+package com.finance.loans.benchmark;
+
+import com.finance.loans.model.Loan;
+import com.finance.loans.model.PaymentRecord;
+import com.finance.loans.model.RepaymentSchedule;
+import com.finance.loans.service.LoanService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用的合成数据集
+ *
+ * 贷款期数 3~36 期，开始日期分布在最近五年内，约 10% 的贷款已结清。
+ * 固定随机种子，保证每次运行的数据相同。
+ */
+public final class BenchmarkData {
+
+    public static final LocalDate TODAY = LocalDate.of(2026, 1, 15);
+
+    private static final int[] PERIOD_CHOICES = {3, 6, 12, 18, 24, 36};
+
+    public final List<Loan> loans = new ArrayList<>();
+
+    public final List<RepaymentSchedule> schedules = new ArrayList<>();
+
+    public final List<PaymentRecord> records = new ArrayList<>();
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 生成贷款（不生成还款计划）
+     */
+    public static List<Loan> loans(int count) {
+        Random random = new Random(42);
+        List<Loan> loans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Loan loan = new Loan();
+            loan.setId((long) i + 1);
+            loan.setName("loan-" + (i + 1));
+            loan.setPlatform("platform-" + random.nextInt(10));
+            int periods = PERIOD_CHOICES[random.nextInt(PERIOD_CHOICES.length)];
+            BigDecimal principal = BigDecimal.valueOf(1000 + random.nextInt(99000)).setScale(2);
+            loan.setPrincipal(principal);
+            loan.setMonthlyAmount(principal.divide(BigDecimal.valueOf(periods), 2, RoundingMode.HALF_UP)
+                    .add(BigDecimal.valueOf(random.nextInt(5000), 2)));
+            loan.setTotalPeriods(periods);
+            loan.setPaymentDay(1 + random.nextInt(28));
+            loan.setStartDate(TODAY.minusDays(random.nextInt(365 * 5)));
+            loan.setStatus(random.nextInt(10) == 0 ? "completed" : "active");
+            loans.add(loan);
+        }
+        return loans;
+    }
+
+    /**
+     * 生成贷款、还款计划以及已还期数对应的还款记录
+     */
+    public static BenchmarkData generate(int loanCount) {
+        BenchmarkData data = new BenchmarkData();
+        data.loans.addAll(loans(loanCount));
+
+        LoanService planner = new LoanService();
+        long scheduleId = 1;
+        long recordId = 1;
+        for (Loan loan : data.loans) {
+            for (RepaymentSchedule schedule : planner.buildRepaymentSchedule(loan, TODAY)) {
+                schedule.setId(scheduleId++);
+                if ("completed".equals(loan.getStatus()) && !"paid".equals(schedule.getStatus())) {
+                    schedule.setStatus("paid");
+                    schedule.setPaidDate(TODAY.minusDays(1));
+                    schedule.setPaidAmount(schedule.getAmount());
+                }
+                data.schedules.add(schedule);
+
+                if ("paid".equals(schedule.getStatus())) {
+                    PaymentRecord record = new PaymentRecord();
+                    record.setId(recordId++);
+                    record.setLoanId(loan.getId());
+                    record.setScheduleId(schedule.getId());
+                    record.setAmount(schedule.getPaidAmount());
+                    record.setPaymentDate(schedule.getPaidDate());
+                    record.setPaymentType("normal");
+                    data.records.add(record);
+                }
+            }
+        }
+        return data;
+    }
+}
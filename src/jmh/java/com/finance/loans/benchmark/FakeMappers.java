@@ -0,0 +1,59 @@
+package com.finance.loans.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 基于动态代理的内存 Mapper
+ *
+ * 只为基准测试用到的方法注册实现，其余方法返回空集合 / 0 / null，
+ * 这样 Mapper 接口新增方法时不需要同步修改基准测试。
+ */
+public final class FakeMappers {
+
+    private FakeMappers() {
+    }
+
+    public static <T> Builder<T> of(Class<T> mapperType) {
+        return new Builder<>(mapperType);
+    }
+
+    public static final class Builder<T> {
+
+        private final Class<T> mapperType;
+
+        private final Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+
+        private Builder(Class<T> mapperType) {
+            this.mapperType = mapperType;
+        }
+
+        public Builder<T> on(String method, Function<Object[], Object> handler) {
+            handlers.put(method, handler);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T build() {
+            return (T) Proxy.newProxyInstance(mapperType.getClassLoader(), new Class<?>[]{mapperType},
+                    (proxy, method, args) -> {
+                        Function<Object[], Object> handler = handlers.get(method.getName());
+                        if (handler != null) {
+                            return handler.apply(args);
+                        }
+                        Class<?> returnType = method.getReturnType();
+                        if (returnType == int.class) {
+                            return 0;
+                        }
+                        if (List.class.isAssignableFrom(returnType)) {
+                            return new ArrayList<>();
+                        }
+                        return null;
+                    });
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.finance.loans.benchmark;
+
+import com.finance.loans.cache.DashboardCache;
+import com.finance.loans.mapper.LoanMapper;
+import com.finance.loans.mapper.RepaymentScheduleMapper;
+import com.finance.loans.model.Loan;
+import com.finance.loans.model.LoanStatusSummary;
+import com.finance.loans.model.RepaymentSchedule;
+import com.finance.loans.model.ScheduleAggregate;
+import com.finance.loans.money.Money;
+import com.finance.loans.service.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 贷款统计：LoanService.getLoanSummary / getLoanBreakdown
+ *
+ * Mapper 返回预先按 SQL 语义算好的聚合结果，测量的是服务层在聚合结果上的处理开销；
+ * 缓存容量设为 0，每次调用都会重新计算。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoanSummaryBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int loanCount;
+
+    private LoanService loanService;
+
+    @Setup
+    public void setup() {
+        BenchmarkData data = BenchmarkData.generate(loanCount);
+
+        List<Loan> activeLoans = new ArrayList<>();
+        Map<String, LoanStatusSummary> byStatus = new LinkedHashMap<>();
+        for (Loan loan : data.loans) {
+            if ("active".equals(loan.getStatus())) {
+                activeLoans.add(loan);
+            }
+            LoanStatusSummary row = byStatus.computeIfAbsent(loan.getStatus(), status -> {
+                LoanStatusSummary summary = new LoanStatusSummary();
+                summary.setStatus(status);
+                summary.setLoanCount(0);
+                summary.setTotalPrincipal(Money.ZERO);
+                summary.setTotalMonthlyAmount(Money.ZERO);
+                return summary;
+            });
+            row.setLoanCount(row.getLoanCount() + 1);
+            row.setTotalPrincipal(row.getTotalPrincipal().plus(Money.of(loan.getPrincipal())));
+            row.setTotalMonthlyAmount(row.getTotalMonthlyAmount().plus(Money.of(loan.getMonthlyAmount())));
+        }
+        List<ScheduleAggregate> activeAggregates = aggregate(data, activeLoans);
+
+        LoanMapper loanMapper = FakeMappers.of(LoanMapper.class)
+                .on("summarizeByStatus", args -> new ArrayList<>(byStatus.values()))
+                .on("findByStatus", args -> "active".equals(args[0]) ? activeLoans : new ArrayList<>())
+                .build();
+        RepaymentScheduleMapper scheduleMapper = FakeMappers.of(RepaymentScheduleMapper.class)
+                .on("aggregateByLoanAndStatus", args -> activeAggregates)
+                .build();
+
+        loanService = new LoanService();
+        ReflectionTestUtils.setField(loanService, "loanMapper", loanMapper);
+        ReflectionTestUtils.setField(loanService, "scheduleMapper", scheduleMapper);
+        ReflectionTestUtils.setField(loanService, "dashboardCache", new DashboardCache(0, 0));
+    }
+
+    @Benchmark
+    public Map<String, Object> summary() {
+        return loanService.getLoanSummary();
+    }
+
+    @Benchmark
+    public Object breakdown() {
+        return loanService.getLoanBreakdown();
+    }
+
+    /**
+     * 按 (loan_id, status) 分组，等价于 aggregateByLoanAndStatus 的 SQL 结果
+     */
+    private static List<ScheduleAggregate> aggregate(BenchmarkData data, List<Loan> loans) {
+        Map<Long, Boolean> included = new LinkedHashMap<>();
+        for (Loan loan : loans) {
+            included.put(loan.getId(), Boolean.TRUE);
+        }
+        Map<String, ScheduleAggregate> groups = new LinkedHashMap<>();
+        for (RepaymentSchedule schedule : data.schedules) {
+            if (!included.containsKey(schedule.getLoanId())) {
+                continue;
+            }
+            ScheduleAggregate row = groups.computeIfAbsent(schedule.getLoanId() + ":" + schedule.getStatus(), key -> {
+                ScheduleAggregate aggregate = new ScheduleAggregate();
+                aggregate.setLoanId(schedule.getLoanId());
+                aggregate.setStatus(schedule.getStatus());
+                aggregate.setPeriodCount(0);
+                aggregate.setTotalAmount(Money.ZERO);
+                aggregate.setTotalPaidAmount(Money.ZERO);
+                return aggregate;
+            });
+            row.setPeriodCount(row.getPeriodCount() + 1);
+            row.setTotalAmount(row.getTotalAmount().plus(Money.of(schedule.getAmount())));
+            BigDecimal paid = schedule.getPaidAmount() != null ? schedule.getPaidAmount() : schedule.getAmount();
+            row.setTotalPaidAmount(row.getTotalPaidAmount().plus(Money.of(paid)));
+        }
+        return new ArrayList<>(groups.values());
+    }
+}
@@ -0,0 +1,80 @@
+package com.finance.loans.benchmark;
+
+import com.finance.loans.model.RepaymentSchedule;
+import com.finance.loans.money.Money;
+import com.finance.loans.money.MoneyAccumulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 金额累加：BigDecimal.add 链 与 MoneyAccumulator（long 分）对比
+ *
+ * 每行按聚合代码的写法累加应还金额和实还金额（实还为空时取应还），
+ * 配合默认的 -prof gc 查看每次调用的分配量（gc.alloc.rate.norm）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoneyBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int loanCount;
+
+    private BigDecimal[] amounts;
+
+    private BigDecimal[] paidAmounts;
+
+    private Money[] moneyAmounts;
+
+    private Money[] moneyPaidAmounts;
+
+    @Setup
+    public void setup() {
+        List<RepaymentSchedule> schedules = BenchmarkData.generate(loanCount).schedules;
+        int size = schedules.size();
+        amounts = new BigDecimal[size];
+        paidAmounts = new BigDecimal[size];
+        moneyAmounts = new Money[size];
+        moneyPaidAmounts = new Money[size];
+        for (int i = 0; i < size; i++) {
+            RepaymentSchedule schedule = schedules.get(i);
+            amounts[i] = schedule.getAmount();
+            paidAmounts[i] = schedule.getPaidAmount();
+            moneyAmounts[i] = Money.of(schedule.getAmount());
+            moneyPaidAmounts[i] = schedule.getPaidAmount() != null ? Money.of(schedule.getPaidAmount()) : null;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        BigDecimal paid = BigDecimal.ZERO;
+        for (int i = 0; i < amounts.length; i++) {
+            BigDecimal amount = amounts[i] != null ? amounts[i] : BigDecimal.ZERO;
+            total = total.add(amount);
+            paid = paid.add(paidAmounts[i] != null ? paidAmounts[i] : amount);
+        }
+        return total.subtract(paid);
+    }
+
+    @Benchmark
+    public BigDecimal moneyAccumulator() {
+        MoneyAccumulator total = new MoneyAccumulator();
+        MoneyAccumulator paid = new MoneyAccumulator();
+        for (int i = 0; i < moneyAmounts.length; i++) {
+            total.add(moneyAmounts[i]);
+            paid.add(moneyPaidAmounts[i] != null ? moneyPaidAmounts[i] : moneyAmounts[i]);
+        }
+        return Money.toBigDecimal(total.cents() - paid.cents());
+    }
+}
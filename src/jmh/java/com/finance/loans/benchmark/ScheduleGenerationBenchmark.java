@@ -0,0 +1,45 @@
+package com.finance.loans.benchmark;
+
+import com.finance.loans.model.Loan;
+import com.finance.loans.service.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 还款计划生成：LoanService.buildRepaymentSchedule
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScheduleGenerationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int loanCount;
+
+    private List<Loan> loans;
+
+    private LoanService loanService;
+
+    @Setup
+    public void setup() {
+        loans = BenchmarkData.loans(loanCount);
+        loanService = new LoanService();
+    }
+
+    @Benchmark
+    public void buildSchedules(Blackhole blackhole) {
+        for (Loan loan : loans) {
+            blackhole.consume(loanService.buildRepaymentSchedule(loan, BenchmarkData.TODAY));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.finance.loans.benchmark;
+
+import com.finance.loans.cache.ScheduleIndex;
+import com.finance.loans.model.CalendarDay;
+import com.finance.loans.model.RepaymentSchedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 还款计划内存索引：按月、按贷款、今日待还、日历汇总查询
+ *
+ * monthScan 是在全部计划上逐行过滤的对照组，对应没有按天桶索引时的做法。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScheduleIndexBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int loanCount;
+
+    private List<RepaymentSchedule> schedules;
+
+    private ScheduleIndex scheduleIndex;
+
+    private Long loanId;
+
+    private LocalDate monthStart;
+
+    private LocalDate nextMonthStart;
+
+    @Setup
+    public void setup() {
+        schedules = BenchmarkData.generate(loanCount).schedules;
+        scheduleIndex = new ScheduleIndex();
+        scheduleIndex.load(schedules);
+        loanId = (long) (loanCount / 2 + 1);
+        YearMonth month = YearMonth.from(BenchmarkData.TODAY);
+        monthStart = month.atDay(1);
+        nextMonthStart = month.plusMonths(1).atDay(1);
+    }
+
+    @Benchmark
+    public List<RepaymentSchedule> monthIndex() {
+        return scheduleIndex.findByDueDate(monthStart, nextMonthStart);
+    }
+
+    @Benchmark
+    public List<RepaymentSchedule> monthScan() {
+        List<RepaymentSchedule> result = new ArrayList<>();
+        for (RepaymentSchedule schedule : schedules) {
+            if (!schedule.getDueDate().isBefore(monthStart) && schedule.getDueDate().isBefore(nextMonthStart)) {
+                result.add(schedule);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<RepaymentSchedule> loanSchedules() {
+        return scheduleIndex.findByLoanId(loanId);
+    }
+
+    @Benchmark
+    public List<RepaymentSchedule> todayPending() {
+        return scheduleIndex.findDuePending(BenchmarkData.TODAY);
+    }
+
+    @Benchmark
+    public List<CalendarDay> calendarYear() {
+        return scheduleIndex.sumByDay(monthStart, monthStart.plusMonths(12));
+    }
+}
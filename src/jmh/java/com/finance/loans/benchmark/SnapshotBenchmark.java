@@ -0,0 +1,90 @@
+package com.finance.loans.benchmark;
+
+import com.finance.loans.cache.DashboardCache;
+import com.finance.loans.mapper.DebtSnapshotMapper;
+import com.finance.loans.mapper.DebtSnapshotRollupMapper;
+import com.finance.loans.mapper.DebtTotalsMapper;
+import com.finance.loans.model.DebtSnapshot;
+import com.finance.loans.model.DebtTotals;
+import com.finance.loans.service.DebtSnapshotService;
+import com.finance.loans.service.DebtTotalsService;
+import com.finance.loans.service.DebtTrendService;
+import com.finance.loans.service.SnapshotReplayEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 快照：DebtSnapshotService.createSnapshot（复制累计值）与历史快照重放
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SnapshotBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int loanCount;
+
+    private BenchmarkData data;
+
+    private LocalDate replayStart;
+
+    private SnapshotReplayEngine replayEngine;
+
+    private DebtSnapshotService snapshotService;
+
+    @Setup
+    public void setup() {
+        data = BenchmarkData.generate(loanCount);
+        replayEngine = new SnapshotReplayEngine();
+        replayStart = replayEngine.earliestDate(data.loans, data.schedules);
+
+        DebtTotals stored = new DebtTotals();
+        stored.setTotalPrincipal(BigDecimal.valueOf(1_000_000, 2));
+        stored.setRemainingAmount(BigDecimal.valueOf(500_000, 2));
+        stored.setActiveLoans(loanCount);
+
+        DebtTotalsService totalsService = new DebtTotalsService();
+        ReflectionTestUtils.setField(totalsService, "totalsMapper",
+                FakeMappers.of(DebtTotalsMapper.class).on("find", args -> stored).build());
+
+        DebtSnapshotMapper snapshotMapper = FakeMappers.of(DebtSnapshotMapper.class)
+                .on("insert", args -> 1)
+                .build();
+        ApplicationEventPublisher eventPublisher = event -> { };
+
+        // 创建快照后刷新当周、当月汇总（这里快照表为空，只测量调用开销）
+        DebtTrendService trendService = new DebtTrendService();
+        ReflectionTestUtils.setField(trendService, "snapshotMapper", snapshotMapper);
+        ReflectionTestUtils.setField(trendService, "rollupMapper", FakeMappers.of(DebtSnapshotRollupMapper.class).build());
+
+        snapshotService = new DebtSnapshotService();
+        ReflectionTestUtils.setField(snapshotService, "snapshotMapper", snapshotMapper);
+        ReflectionTestUtils.setField(snapshotService, "debtTotalsService", totalsService);
+        ReflectionTestUtils.setField(snapshotService, "debtTrendService", trendService);
+        ReflectionTestUtils.setField(snapshotService, "dashboardCache", new DashboardCache(0, 0));
+        ReflectionTestUtils.setField(snapshotService, "eventPublisher", eventPublisher);
+    }
+
+    @Benchmark
+    public DebtSnapshot createSnapshot() {
+        return snapshotService.createSnapshot(BenchmarkData.TODAY, "daily");
+    }
+
+    @Benchmark
+    public List<DebtSnapshot> replayHistory() {
+        return replayEngine.replay(data.loans, data.schedules, data.records, replayStart, BenchmarkData.TODAY);
+    }
+}
@@ -2,6 +2,7 @@ package com.finance.loans;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
@@ -14,8 +15,17 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableScheduling
 public class LoansApplication {
 
+    /**
+     * 启动步骤缓冲区大小，通过 -Dloans.startup.buffer-size=N 开启，步骤明细见 /actuator/startup
+     */
+    private static final int STARTUP_BUFFER_SIZE = Integer.getInteger("loans.startup.buffer-size", 0);
+
     public static void main(String[] args) {
-        SpringApplication.run(LoansApplication.class, args);
+        SpringApplication application = new SpringApplication(LoansApplication.class);
+        if (STARTUP_BUFFER_SIZE > 0) {
+            application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_BUFFER_SIZE));
+        }
+        application.run(args);
         System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
         System.out.println("✅ 个人资金 & 网贷管理系统启动成功！");
         System.out.println("🌐 访问地址: http://localhost:8080");
@@ -0,0 +1,158 @@
+package com.finance.loans.cache;
+
+import com.finance.loans.event.DataChangedEvent;
+import com.finance.loans.event.DataTable;
+import com.finance.loans.model.DebtSnapshot;
+import com.finance.loans.model.Loan;
+import com.finance.loans.model.RepaymentSchedule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 首页、日历等页面轮询数据的内存缓存
+ *
+ * 数据只在贷款、还款计划、还款记录、快照发生变更时才会变化，
+ * 变更事务提交后按 {@link DataChangedEvent} 精确失效对应的键。
+ */
+@Component
+public class DashboardCache {
+    
+    private static final String SUMMARY_KEY = "summary";
+    
+    private static final String LATEST_SNAPSHOT_KEY = "latest";
+    
+    private static final String ACTIVE_LOANS_KEY = "active";
+    
+    private final ReadThroughCache<String, Map<String, Object>> summaryCache;
+    
+    private final ReadThroughCache<String, DebtSnapshot> snapshotCache;
+    
+    private final ReadThroughCache<String, List<Loan>> activeLoanCache;
+    
+    private final ReadThroughCache<YearMonth, List<RepaymentSchedule>> monthScheduleCache;
+    
+    private final ReadThroughCache<Long, List<RepaymentSchedule>> loanScheduleCache;
+    
+    public DashboardCache(@Value("${loans.cache.max-size:500}") int maxSize,
+                          @Value("${loans.cache.ttl-seconds:300}") long ttlSeconds) {
+        long ttlMillis = ttlSeconds * 1000;
+        this.summaryCache = new ReadThroughCache<>("summary", Math.min(maxSize, 1), ttlMillis);
+        this.snapshotCache = new ReadThroughCache<>("latestSnapshot", Math.min(maxSize, 1), ttlMillis);
+        this.activeLoanCache = new ReadThroughCache<>("activeLoans", Math.min(maxSize, 1), ttlMillis);
+        this.monthScheduleCache = new ReadThroughCache<>("monthSchedules", maxSize, ttlMillis);
+        this.loanScheduleCache = new ReadThroughCache<>("loanSchedules", maxSize, ttlMillis);
+    }
+    
+    /**
+     * 贷款统计
+     */
+    public Map<String, Object> summary(Supplier<Map<String, Object>> loader) {
+        return summaryCache.get(SUMMARY_KEY, () -> {
+            Map<String, Object> summary = loader.get();
+            return summary != null ? Collections.unmodifiableMap(summary) : null;
+        });
+    }
+    
+    /**
+     * 最新快照
+     */
+    public DebtSnapshot latestSnapshot(Supplier<DebtSnapshot> loader) {
+        return snapshotCache.get(LATEST_SNAPSHOT_KEY, loader);
+    }
+    
+    /**
+     * 活跃贷款
+     */
+    public List<Loan> activeLoans(Supplier<List<Loan>> loader) {
+        return activeLoanCache.get(ACTIVE_LOANS_KEY, () -> {
+            List<Loan> loans = loader.get();
+            return loans != null ? Collections.unmodifiableList(loans) : null;
+        });
+    }
+    
+    /**
+     * 指定月份的还款计划
+     */
+    public List<RepaymentSchedule> monthSchedules(YearMonth month, Supplier<List<RepaymentSchedule>> loader) {
+        return monthScheduleCache.get(month, () -> unmodifiable(loader.get()));
+    }
+    
+    /**
+     * 指定贷款的还款计划
+     */
+    public List<RepaymentSchedule> loanSchedules(Long loanId, Supplier<List<RepaymentSchedule>> loader) {
+        return loanScheduleCache.get(loanId, () -> unmodifiable(loader.get()));
+    }
+    
+    /**
+     * 事务提交后按变更范围失效缓存（无事务时立即执行），先于 {@link TableVersions} 递增版本号
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        boolean schedulesChanged = event.affects(DataTable.REPAYMENT_SCHEDULE);
+        
+        if (event.affects(DataTable.LOAN) || schedulesChanged) {
+            summaryCache.invalidate(SUMMARY_KEY);
+        }
+        if (event.affects(DataTable.LOAN)) {
+            activeLoanCache.invalidate(ACTIVE_LOANS_KEY);
+        }
+        if (event.affects(DataTable.DEBT_SNAPSHOT)) {
+            snapshotCache.invalidate(LATEST_SNAPSHOT_KEY);
+        }
+        if (!schedulesChanged) {
+            return;
+        }
+        
+        // 未指明范围时保守地清空全部；指明时一次遍历失效所有涉及的月份/贷款
+        if (event.getMonths().isEmpty()) {
+            monthScheduleCache.invalidateAll();
+        } else {
+            monthScheduleCache.invalidateIf(event.getMonths()::contains);
+        }
+        if (event.getLoanIds().isEmpty()) {
+            loanScheduleCache.invalidateAll();
+        } else {
+            loanScheduleCache.invalidateIf(event.getLoanIds()::contains);
+        }
+    }
+    
+    /**
+     * 清空全部缓存
+     */
+    public void clear() {
+        summaryCache.invalidateAll();
+        snapshotCache.invalidateAll();
+        activeLoanCache.invalidateAll();
+        monthScheduleCache.invalidateAll();
+        loanScheduleCache.invalidateAll();
+    }
+    
+    /**
+     * 各缓存的命中、未命中、淘汰统计
+     */
+    public List<Map<String, Object>> stats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        stats.add(summaryCache.stats());
+        stats.add(snapshotCache.stats());
+        stats.add(activeLoanCache.stats());
+        stats.add(monthScheduleCache.stats());
+        stats.add(loanScheduleCache.stats());
+        return stats;
+    }
+    
+    private static List<RepaymentSchedule> unmodifiable(List<RepaymentSchedule> schedules) {
+        return schedules != null ? Collections.unmodifiableList(schedules) : null;
+    }
+}
@@ -0,0 +1,145 @@
+package com.finance.loans.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 有容量上限和过期时间的读穿透缓存
+ *
+ * 按访问顺序淘汰最久未使用的条目，超过 TTL 的条目在读取时失效。
+ * 加载数据时不持有锁；若加载期间发生了失效，加载结果不会写入缓存，避免把旧数据放回去。
+ */
+public class ReadThroughCache<K, V> {
+    
+    private final String name;
+    
+    private final int maxSize;
+    
+    private final long ttlMillis;
+    
+    private final LinkedHashMap<K, Entry<V>> entries;
+    
+    /** 每次失效递增，用于丢弃失效前开始的加载结果 */
+    private long generation;
+    
+    private long hits;
+    
+    private long misses;
+    
+    private long evictions;
+    
+    private long invalidations;
+    
+    public ReadThroughCache(String name, int maxSize, long ttlMillis) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+    
+    /**
+     * 读取缓存，未命中时调用 loader 加载（loader 返回 null 时不缓存）
+     */
+    public V get(K key, Supplier<V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.currentTimeMillis() - entry.loadedAt < ttlMillis) {
+                    hits++;
+                    return entry.value;
+                }
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+        
+        V value = loader.get();
+        if (value == null || maxSize <= 0) {
+            return value;
+        }
+        
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+                evictOverflow();
+            }
+        }
+        return value;
+    }
+    
+    /**
+     * 使单个键失效
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        if (entries.remove(key) != null) {
+            invalidations++;
+        }
+    }
+    
+    /**
+     * 使满足条件的键失效
+     */
+    public synchronized void invalidateIf(Predicate<K> predicate) {
+        generation++;
+        Iterator<K> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (predicate.test(iterator.next())) {
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+    
+    /**
+     * 清空缓存
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+    
+    /**
+     * 缓存统计
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long requests = hits + misses;
+        stats.put("name", name);
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hits / requests);
+        stats.put("evictions", evictions);
+        stats.put("invalidations", invalidations);
+        return stats;
+    }
+    
+    private void evictOverflow() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+    
+    private static class Entry<V> {
+        final V value;
+        final long loadedAt;
+        
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
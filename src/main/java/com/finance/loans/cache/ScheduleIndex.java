@@ -0,0 +1,589 @@
+package com.finance.loans.cache;
+
+import com.finance.loans.event.DataChangedEvent;
+import com.finance.loans.event.DataTable;
+import com.finance.loans.mapper.RepaymentScheduleMapper;
+import com.finance.loans.model.CalendarDay;
+import com.finance.loans.model.RepaymentSchedule;
+import com.finance.loans.money.Money;
+import org.apache.ibatis.cursor.Cursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 还款计划的列式内存索引（loans.schedule-index.enabled 开启）
+ *
+ * 启动预热阶段（StartupWarmup）流式读取全部还款计划，按列保存为基本类型数组（应还日期为 epochDay、金额为分、状态为字节），
+ * 行按应还日期排序，并建立按天的桶偏移和按贷款的行号索引，按天、按月、按贷款查询不再访问数据库。
+ * MySQL 仍是唯一数据源：变更事务提交后按 {@link DataChangedEvent} 重新读取受影响贷款的计划，
+ * 合并成新的不可变快照后整体替换，读操作无锁。索引未就绪或刷新失败时查询方法返回 null，调用方回退到数据库。
+ */
+@Component
+public class ScheduleIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleIndex.class);
+
+    /** 状态字节与状态值的对应关系（下标即字节值） */
+    private static final String[] STATUSES = {"pending", "paid", "overdue"};
+
+    private static final byte PENDING = 0;
+
+    private static final byte PAID = 1;
+
+    private static final byte OVERDUE = 2;
+
+    private static final byte UNKNOWN = -1;
+
+    /** 可空 long 列的空值 */
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    /** 可空 int 列的空值 */
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    @Value("${loans.schedule-index.enabled:false}")
+    private boolean enabled;
+
+    @Autowired
+    private RepaymentScheduleMapper scheduleMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /** 当前快照，为空表示未就绪 */
+    private volatile Columns columns;
+
+    private LocalDateTime loadedAt;
+
+    private long loadMillis;
+
+    private long refreshes;
+
+    /**
+     * 是否开启
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 从数据库重新加载全部还款计划（未开启时不做任何事）
+     */
+    public synchronized void reload() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Cursor<RepaymentSchedule> cursor = scheduleMapper.streamAll(null)) {
+                    load(cursor);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            logger.info("还款计划索引加载完成: {} 行, {} 笔贷款, 耗时 {} ms",
+                    columns.size, columns.loanSlots.size(), loadMillis);
+        } catch (RuntimeException e) {
+            columns = null;
+            logger.error("还款计划索引加载失败，查询回退到数据库", e);
+        }
+    }
+
+    /**
+     * 用给定的还款计划构建索引（替换当前快照）
+     */
+    public synchronized void load(Iterable<RepaymentSchedule> schedules) {
+        long start = System.currentTimeMillis();
+        Builder builder = new Builder(1024);
+        for (RepaymentSchedule schedule : schedules) {
+            builder.add(schedule);
+        }
+        columns = builder.build();
+        loadedAt = LocalDateTime.now();
+        loadMillis = System.currentTimeMillis() - start;
+    }
+
+    /**
+     * 事务提交后按变更范围刷新（无事务时立即执行）：
+     * 重新读取受影响贷款的计划并与其余行合并；未指明贷款时重新加载全部。
+     * 先于 {@link TableVersions} 递增版本号
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onDataChanged(DataChangedEvent event) {
+        if (columns == null || !event.affects(DataTable.REPAYMENT_SCHEDULE)) {
+            return;
+        }
+        if (event.getLoanIds().isEmpty()) {
+            reload();
+            return;
+        }
+        try {
+            refresh(event.getLoanIds());
+        } catch (RuntimeException e) {
+            columns = null;
+            logger.error("还款计划索引刷新失败，查询回退到数据库，可通过清空缓存重新加载", e);
+        }
+    }
+
+    private void refresh(Set<Long> loanIds) {
+        Columns current = columns;
+        List<RepaymentSchedule> changed = scheduleMapper.findByLoanIds(loanIds);
+
+        Builder builder = new Builder(current.size + changed.size());
+        for (int row = 0; row < current.size; row++) {
+            if (!loanIds.contains(current.loanIds[row])) {
+                builder.copy(current, row);
+            }
+        }
+        for (RepaymentSchedule schedule : changed) {
+            builder.add(schedule);
+        }
+        columns = builder.build();
+        refreshes++;
+    }
+
+    /**
+     * 索引是否可用
+     */
+    public boolean isReady() {
+        return columns != null;
+    }
+
+    /**
+     * 贷款的全部还款计划（按期数升序）
+     */
+    public List<RepaymentSchedule> findByLoanId(Long loanId) {
+        return findByLoanIdAndStatus(loanId, null);
+    }
+
+    /**
+     * 贷款指定状态的还款计划（按期数升序），status 为空时不过滤
+     */
+    public List<RepaymentSchedule> findByLoanIdAndStatus(Long loanId, String status) {
+        Columns snapshot = columns;
+        if (snapshot == null) {
+            return null;
+        }
+        List<RepaymentSchedule> result = new ArrayList<>();
+        Integer slot = snapshot.loanSlots.get(loanId);
+        if (slot == null) {
+            return result;
+        }
+        byte code = status != null ? statusCode(status) : UNKNOWN;
+        for (int i = snapshot.loanOffsets[slot]; i < snapshot.loanOffsets[slot + 1]; i++) {
+            int row = snapshot.loanRows[i];
+            if (status == null || snapshot.statuses[row] == code) {
+                result.add(snapshot.toSchedule(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 应还日期在 [fromDate, beforeDate) 内的还款计划（按应还日期升序）
+     */
+    public List<RepaymentSchedule> findByDueDate(LocalDate fromDate, LocalDate beforeDate) {
+        Columns snapshot = columns;
+        if (snapshot == null) {
+            return null;
+        }
+        int from = snapshot.rowFrom(fromDate.toEpochDay());
+        int to = snapshot.rowFrom(beforeDate.toEpochDay());
+        List<RepaymentSchedule> result = new ArrayList<>(to - from);
+        for (int row = from; row < to; row++) {
+            result.add(snapshot.toSchedule(row));
+        }
+        return result;
+    }
+
+    /**
+     * 指定日期应还且状态为 pending 的还款计划（按ID升序）
+     */
+    public List<RepaymentSchedule> findDuePending(LocalDate dueDate) {
+        Columns snapshot = columns;
+        if (snapshot == null) {
+            return null;
+        }
+        int from = snapshot.rowFrom(dueDate.toEpochDay());
+        int to = snapshot.rowFrom(dueDate.toEpochDay() + 1);
+        List<RepaymentSchedule> result = new ArrayList<>();
+        for (int row = from; row < to; row++) {
+            if (snapshot.statuses[row] == PENDING) {
+                result.add(snapshot.toSchedule(row));
+            }
+        }
+        result.sort(Comparator.comparing(RepaymentSchedule::getId));
+        return result;
+    }
+
+    /**
+     * 按应还日期汇总 [fromDate, beforeDate) 内的还款计划，只返回有计划的日期（与 sumByDay 一致）
+     */
+    public List<CalendarDay> sumByDay(LocalDate fromDate, LocalDate beforeDate) {
+        Columns snapshot = columns;
+        if (snapshot == null) {
+            return null;
+        }
+        List<CalendarDay> days = new ArrayList<>();
+        long firstDay = Math.max(fromDate.toEpochDay(), snapshot.firstDay);
+        long lastDay = Math.min(beforeDate.toEpochDay(), (long) snapshot.firstDay + snapshot.dayOffsets.length - 1);
+        for (long day = firstDay; day < lastDay; day++) {
+            int bucket = (int) (day - snapshot.firstDay);
+            int from = snapshot.dayOffsets[bucket];
+            int to = snapshot.dayOffsets[bucket + 1];
+            if (from == to) {
+                continue;
+            }
+            int paidCount = 0;
+            int pendingCount = 0;
+            int overdueCount = 0;
+            long dueAmount = 0;
+            long paidAmount = 0;
+            long pendingAmount = 0;
+            long overdueAmount = 0;
+            for (int row = from; row < to; row++) {
+                long amount = snapshot.amounts[row];
+                dueAmount = Math.addExact(dueAmount, amount);
+                switch (snapshot.statuses[row]) {
+                    case PAID -> {
+                        paidCount++;
+                        long paid = snapshot.paidAmounts[row];
+                        paidAmount = Math.addExact(paidAmount, paid != NULL_LONG ? paid : amount);
+                    }
+                    case PENDING -> {
+                        pendingCount++;
+                        pendingAmount = Math.addExact(pendingAmount, amount);
+                    }
+                    case OVERDUE -> {
+                        overdueCount++;
+                        overdueAmount = Math.addExact(overdueAmount, amount);
+                    }
+                }
+            }
+            CalendarDay calendarDay = new CalendarDay();
+            calendarDay.setDate(LocalDate.ofEpochDay(day));
+            calendarDay.setDueCount(to - from);
+            calendarDay.setPaidCount(paidCount);
+            calendarDay.setPendingCount(pendingCount);
+            calendarDay.setOverdueCount(overdueCount);
+            calendarDay.setDueAmount(Money.toBigDecimal(dueAmount));
+            calendarDay.setPaidAmount(Money.toBigDecimal(paidAmount));
+            calendarDay.setPendingAmount(Money.toBigDecimal(pendingAmount));
+            calendarDay.setOverdueAmount(Money.toBigDecimal(overdueAmount));
+            days.add(calendarDay);
+        }
+        return days;
+    }
+
+    /**
+     * 索引统计
+     */
+    public synchronized Map<String, Object> stats() {
+        Columns snapshot = columns;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", "scheduleIndex");
+        stats.put("enabled", enabled);
+        stats.put("ready", snapshot != null);
+        stats.put("rows", snapshot != null ? snapshot.size : 0);
+        stats.put("loans", snapshot != null ? snapshot.loanSlots.size() : 0);
+        stats.put("days", snapshot != null ? snapshot.dayOffsets.length - 1 : 0);
+        stats.put("loadedAt", loadedAt);
+        stats.put("loadMillis", loadMillis);
+        stats.put("refreshes", refreshes);
+        return stats;
+    }
+
+    /**
+     * 状态值对应的字节，未知状态返回 UNKNOWN
+     */
+    private static byte statusCode(String status) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                return (byte) i;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * 不可变的列式快照
+     *
+     * 第 row 行的各列位于各数组的同一下标；行按应还日期排序，
+     * dayOffsets[d - firstDay] 到 dayOffsets[d - firstDay + 1] 是应还日期为 d 的行；
+     * loanRows 按贷款分组、组内按期数排序，loanSlots 给出贷款在 loanOffsets 中的下标。
+     */
+    private static final class Columns {
+
+        final int size;
+        final long[] ids;
+        final long[] loanIds;
+        final int[] periods;
+        final int[] dueDays;
+        final long[] amounts;
+        final long[] paidAmounts;
+        final int[] paidDays;
+        final byte[] statuses;
+        final int[] versions;
+        final long[] createdAt;
+        final long[] updatedAt;
+
+        final int firstDay;
+        final int[] dayOffsets;
+
+        final Map<Long, Integer> loanSlots;
+        final int[] loanOffsets;
+        final int[] loanRows;
+
+        Columns(int size, long[] ids, long[] loanIds, int[] periods, int[] dueDays, long[] amounts,
+                long[] paidAmounts, int[] paidDays, byte[] statuses, int[] versions, long[] createdAt,
+                long[] updatedAt, int firstDay, int[] dayOffsets) {
+            this.size = size;
+            this.ids = ids;
+            this.loanIds = loanIds;
+            this.periods = periods;
+            this.dueDays = dueDays;
+            this.amounts = amounts;
+            this.paidAmounts = paidAmounts;
+            this.paidDays = paidDays;
+            this.statuses = statuses;
+            this.versions = versions;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+            this.firstDay = firstDay;
+            this.dayOffsets = dayOffsets;
+
+            // 按贷款分组：先分配槽位并计数，再按槽位分散行号
+            this.loanSlots = new HashMap<>();
+            int[] slotOfRow = new int[size];
+            for (int row = 0; row < size; row++) {
+                Integer slot = loanSlots.get(loanIds[row]);
+                if (slot == null) {
+                    slot = loanSlots.size();
+                    loanSlots.put(loanIds[row], slot);
+                }
+                slotOfRow[row] = slot;
+            }
+            this.loanOffsets = new int[loanSlots.size() + 1];
+            for (int row = 0; row < size; row++) {
+                loanOffsets[slotOfRow[row] + 1]++;
+            }
+            for (int slot = 0; slot < loanSlots.size(); slot++) {
+                loanOffsets[slot + 1] += loanOffsets[slot];
+            }
+            this.loanRows = new int[size];
+            int[] next = Arrays.copyOf(loanOffsets, loanSlots.size());
+            for (int row = 0; row < size; row++) {
+                loanRows[next[slotOfRow[row]]++] = row;
+            }
+            // 行按应还日期排列，组内通常已按期数有序，插入排序只做兜底
+            for (int slot = 0; slot < loanSlots.size(); slot++) {
+                for (int i = loanOffsets[slot] + 1; i < loanOffsets[slot + 1]; i++) {
+                    int row = loanRows[i];
+                    int j = i - 1;
+                    while (j >= loanOffsets[slot] && periods[loanRows[j]] > periods[row]) {
+                        loanRows[j + 1] = loanRows[j];
+                        j--;
+                    }
+                    loanRows[j + 1] = row;
+                }
+            }
+        }
+
+        /**
+         * 应还日期不早于 epochDay 的第一行
+         */
+        int rowFrom(long epochDay) {
+            if (epochDay <= firstDay) {
+                return 0;
+            }
+            long bucket = epochDay - firstDay;
+            return bucket >= dayOffsets.length ? size : dayOffsets[(int) bucket];
+        }
+
+        RepaymentSchedule toSchedule(int row) {
+            RepaymentSchedule schedule = new RepaymentSchedule();
+            schedule.setId(ids[row]);
+            schedule.setLoanId(loanIds[row]);
+            schedule.setPeriod(periods[row]);
+            schedule.setDueDate(LocalDate.ofEpochDay(dueDays[row]));
+            schedule.setAmount(Money.toBigDecimal(amounts[row]));
+            schedule.setStatus(STATUSES[statuses[row]]);
+            schedule.setPaidDate(paidDays[row] != NULL_INT ? LocalDate.ofEpochDay(paidDays[row]) : null);
+            schedule.setPaidAmount(paidAmounts[row] != NULL_LONG ? Money.toBigDecimal(paidAmounts[row]) : null);
+            schedule.setVersion(versions[row]);
+            schedule.setCreatedAt(toDateTime(createdAt[row]));
+            schedule.setUpdatedAt(toDateTime(updatedAt[row]));
+            return schedule;
+        }
+    }
+
+    /**
+     * 按行追加的列缓冲，build 时按应还日期做计数排序
+     */
+    private static final class Builder {
+
+        private int size;
+        private long[] ids;
+        private long[] loanIds;
+        private int[] periods;
+        private int[] dueDays;
+        private long[] amounts;
+        private long[] paidAmounts;
+        private int[] paidDays;
+        private byte[] statuses;
+        private int[] versions;
+        private long[] createdAt;
+        private long[] updatedAt;
+
+        Builder(int capacity) {
+            int initial = Math.max(capacity, 16);
+            ids = new long[initial];
+            loanIds = new long[initial];
+            periods = new int[initial];
+            dueDays = new int[initial];
+            amounts = new long[initial];
+            paidAmounts = new long[initial];
+            paidDays = new int[initial];
+            statuses = new byte[initial];
+            versions = new int[initial];
+            createdAt = new long[initial];
+            updatedAt = new long[initial];
+        }
+
+        void add(RepaymentSchedule schedule) {
+            ensureCapacity();
+            ids[size] = schedule.getId();
+            loanIds[size] = schedule.getLoanId();
+            periods[size] = schedule.getPeriod();
+            dueDays[size] = Math.toIntExact(schedule.getDueDate().toEpochDay());
+            amounts[size] = Money.toCents(schedule.getAmount());
+            paidAmounts[size] = schedule.getPaidAmount() != null ? Money.toCents(schedule.getPaidAmount()) : NULL_LONG;
+            paidDays[size] = schedule.getPaidDate() != null
+                    ? Math.toIntExact(schedule.getPaidDate().toEpochDay()) : NULL_INT;
+            statuses[size] = statusCode(schedule.getStatus());
+            if (statuses[size] == UNKNOWN) {
+                throw new IllegalStateException("未知的还款计划状态: " + schedule.getStatus());
+            }
+            versions[size] = schedule.getVersion() != null ? schedule.getVersion() : 0;
+            createdAt[size] = toSeconds(schedule.getCreatedAt());
+            updatedAt[size] = toSeconds(schedule.getUpdatedAt());
+            size++;
+        }
+
+        void copy(Columns source, int row) {
+            ensureCapacity();
+            ids[size] = source.ids[row];
+            loanIds[size] = source.loanIds[row];
+            periods[size] = source.periods[row];
+            dueDays[size] = source.dueDays[row];
+            amounts[size] = source.amounts[row];
+            paidAmounts[size] = source.paidAmounts[row];
+            paidDays[size] = source.paidDays[row];
+            statuses[size] = source.statuses[row];
+            versions[size] = source.versions[row];
+            createdAt[size] = source.createdAt[row];
+            updatedAt[size] = source.updatedAt[row];
+            size++;
+        }
+
+        private void ensureCapacity() {
+            if (size < ids.length) {
+                return;
+            }
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            loanIds = Arrays.copyOf(loanIds, capacity);
+            periods = Arrays.copyOf(periods, capacity);
+            dueDays = Arrays.copyOf(dueDays, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            paidAmounts = Arrays.copyOf(paidAmounts, capacity);
+            paidDays = Arrays.copyOf(paidDays, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+        }
+
+        /**
+         * 按应还日期计数排序（稳定），同时得到每天的桶偏移
+         */
+        Columns build() {
+            int firstDay = 0;
+            int lastDay = -1;
+            for (int row = 0; row < size; row++) {
+                if (row == 0 || dueDays[row] < firstDay) {
+                    firstDay = dueDays[row];
+                }
+                if (row == 0 || dueDays[row] > lastDay) {
+                    lastDay = dueDays[row];
+                }
+            }
+            int[] dayOffsets = new int[lastDay - firstDay + 2];
+            for (int row = 0; row < size; row++) {
+                dayOffsets[dueDays[row] - firstDay + 1]++;
+            }
+            for (int day = 1; day < dayOffsets.length; day++) {
+                dayOffsets[day] += dayOffsets[day - 1];
+            }
+
+            long[] sortedIds = new long[size];
+            long[] sortedLoanIds = new long[size];
+            int[] sortedPeriods = new int[size];
+            int[] sortedDueDays = new int[size];
+            long[] sortedAmounts = new long[size];
+            long[] sortedPaidAmounts = new long[size];
+            int[] sortedPaidDays = new int[size];
+            byte[] sortedStatuses = new byte[size];
+            int[] sortedVersions = new int[size];
+            long[] sortedCreatedAt = new long[size];
+            long[] sortedUpdatedAt = new long[size];
+            int[] next = Arrays.copyOf(dayOffsets, dayOffsets.length - 1);
+            for (int row = 0; row < size; row++) {
+                int target = next[dueDays[row] - firstDay]++;
+                sortedIds[target] = ids[row];
+                sortedLoanIds[target] = loanIds[row];
+                sortedPeriods[target] = periods[row];
+                sortedDueDays[target] = dueDays[row];
+                sortedAmounts[target] = amounts[row];
+                sortedPaidAmounts[target] = paidAmounts[row];
+                sortedPaidDays[target] = paidDays[row];
+                sortedStatuses[target] = statuses[row];
+                sortedVersions[target] = versions[row];
+                sortedCreatedAt[target] = createdAt[row];
+                sortedUpdatedAt[target] = updatedAt[row];
+            }
+            return new Columns(size, sortedIds, sortedLoanIds, sortedPeriods, sortedDueDays, sortedAmounts,
+                    sortedPaidAmounts, sortedPaidDays, sortedStatuses, sortedVersions, sortedCreatedAt,
+                    sortedUpdatedAt, firstDay, dayOffsets);
+        }
+    }
+
+    private static long toSeconds(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toEpochSecond(ZoneOffset.UTC) : NULL_LONG;
+    }
+
+    private static LocalDateTime toDateTime(long seconds) {
+        return seconds != NULL_LONG ? LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC) : null;
+    }
+}
@@ -0,0 +1,67 @@
+package com.finance.loans.cache;
+
+import com.finance.loans.event.DataChangedEvent;
+import com.finance.loans.event.DataTable;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 各数据表的内存版本号
+ *
+ * 写操作提交后按 {@link DataChangedEvent} 递增受影响表的版本号，用于生成 ETag。
+ * 版本号带有启动时间前缀，应用重启后旧 ETag 全部失效。
+ */
+@Component
+public class TableVersions {
+    
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    
+    private final Map<DataTable, AtomicLong> versions = new EnumMap<>(DataTable.class);
+    
+    public TableVersions() {
+        for (DataTable table : DataTable.values()) {
+            versions.put(table, new AtomicLong());
+        }
+    }
+    
+    /**
+     * 组合指定表的当前版本，如 "lq3x0k2-12.7"
+     */
+    public String versionOf(DataTable... tables) {
+        StringBuilder version = new StringBuilder(epoch).append('-');
+        for (int i = 0; i < tables.length; i++) {
+            if (i > 0) {
+                version.append('.');
+            }
+            version.append(versions.get(tables[i]).get());
+        }
+        return version.toString();
+    }
+    
+    /**
+     * 事务提交后递增受影响表的版本号（无事务时立即执行）
+     *
+     * 排在所有缓存失效、索引刷新之后执行：版本号先变会让轮询在这段时间内拿到新 ETag 和旧数据，
+     * 之后一直 304 到下一次写入。
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        for (DataTable table : event.getTables()) {
+            versions.get(table).incrementAndGet();
+        }
+    }
+    
+    /**
+     * 递增全部版本号（如手动清空缓存时）
+     */
+    public void bumpAll() {
+        versions.values().forEach(AtomicLong::incrementAndGet);
+    }
+}
@@ -0,0 +1,88 @@
+package com.finance.loans.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 定时任务执行器配置
+ *
+ * 调度线程只负责按时触发，任务本身通过 @Async 交给各自独立的执行器：
+ * 凌晨快照等耗时任务不会占住调度线程，也不会推迟 21:00 的自动结算。
+ * 开启 spring.threads.virtual.enabled（需要 Java 21）时执行器改用虚拟线程。
+ */
+@Configuration
+@EnableAsync
+public class SchedulingConfig {
+    
+    /** 自动结算执行器 */
+    public static final String SETTLEMENT_EXECUTOR = "settlementExecutor";
+    
+    /** 快照任务执行器 */
+    public static final String SNAPSHOT_EXECUTOR = "snapshotExecutor";
+    
+    /** 快照分段重新生成执行器 */
+    public static final String REGENERATION_EXECUTOR = "regenerationExecutor";
+    
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    
+    /** 快照重新生成的并行分段数（每段占用一个数据库连接） */
+    @Value("${loans.snapshot.regeneration.parallelism:4}")
+    private int regenerationParallelism;
+    
+    @Bean(SETTLEMENT_EXECUTOR)
+    public TaskExecutor settlementExecutor() {
+        return singleTaskExecutor("settlement-");
+    }
+    
+    @Bean(SNAPSHOT_EXECUTOR)
+    public TaskExecutor snapshotExecutor() {
+        return singleTaskExecutor("snapshot-");
+    }
+    
+    @Bean(REGENERATION_EXECUTOR)
+    public TaskExecutor regenerationExecutor() {
+        return boundedExecutor("regeneration-", Math.max(1, regenerationParallelism));
+    }
+    
+    /**
+     * 同一时间只运行一个任务的执行器（同类任务不并发执行，忙时最多排队 10 个，调度线程不等待）
+     */
+    private TaskExecutor singleTaskExecutor(String threadNamePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        applyVirtualThreads(executor, threadNamePrefix);
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * 开启虚拟线程时让线程池用虚拟线程执行任务，排队与并发上限和平台线程模式一致
+     */
+    private void applyVirtualThreads(ThreadPoolTaskExecutor executor, String threadNamePrefix) {
+        if (virtualThreads) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory());
+        }
+    }
+    
+    /**
+     * 最多同时运行 concurrency 个任务的执行器，其余任务排队（提交方不等待）
+     */
+    private TaskExecutor boundedExecutor(String threadNamePrefix, int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        applyVirtualThreads(executor, threadNamePrefix);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,42 @@
+package com.finance.loans.config;
+
+import com.finance.loans.metrics.SqlMetricsInterceptor;
+import com.finance.loans.metrics.SqlStatsEndpoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SQL 语句指标配置
+ *
+ * 开启 loans.sql-metrics.enabled 时注册 MyBatis 插件（mybatis-spring-boot-starter 自动把 Interceptor Bean
+ * 加入 SqlSessionFactory）和 sqlstats 端点；关闭时两者都不创建，语句执行不经过插件。
+ */
+@Configuration
+@ConditionalOnProperty(name = "loans.sql-metrics.enabled", havingValue = "true")
+public class SqlMetricsConfig {
+    
+    /** 耗时与行数的抽样比例（0~1，失败次数和慢语句日志不抽样） */
+    @Value("${loans.sql-metrics.sample-rate:1.0}")
+    private double sampleRate;
+    
+    /** 慢语句阈值（毫秒，0 不输出慢语句日志） */
+    @Value("${loans.sql-metrics.slow-threshold-ms:200}")
+    private long slowThresholdMillis;
+    
+    /** 是否发布百分位直方图桶 */
+    @Value("${loans.sql-metrics.histogram:true}")
+    private boolean histogram;
+    
+    @Bean
+    public SqlMetricsInterceptor sqlMetricsInterceptor(MeterRegistry registry) {
+        return new SqlMetricsInterceptor(registry, sampleRate, slowThresholdMillis, histogram);
+    }
+    
+    @Bean
+    public SqlStatsEndpoint sqlStatsEndpoint(SqlMetricsInterceptor interceptor) {
+        return new SqlStatsEndpoint(interceptor);
+    }
+}
@@ -0,0 +1,52 @@
+package com.finance.loans.controller;
+
+import com.finance.loans.cache.DashboardCache;
+import com.finance.loans.cache.ScheduleIndex;
+import com.finance.loans.cache.TableVersions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 缓存管理控制器
+ */
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+    
+    @Autowired
+    private DashboardCache dashboardCache;
+    
+    @Autowired
+    private TableVersions tableVersions;
+    
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+    
+    /**
+     * 获取缓存统计
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<Map<String, Object>>> getStats() {
+        List<Map<String, Object>> stats = dashboardCache.stats();
+        stats.add(scheduleIndex.stats());
+        return ResponseEntity.ok(stats);
+    }
+    
+    /**
+     * 清空缓存（同时使所有 ETag 失效，并重新加载还款计划索引）
+     */
+    @DeleteMapping
+    public ResponseEntity<Map<String, String>> clear() {
+        dashboardCache.clear();
+        scheduleIndex.reload();
+        tableVersions.bumpAll();
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "缓存已清空");
+        return ResponseEntity.ok(response);
+    }
+}
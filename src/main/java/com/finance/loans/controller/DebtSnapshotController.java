@@ -1,7 +1,18 @@
 package com.finance.loans.controller;
 
+import com.finance.loans.event.DataTable;
 import com.finance.loans.model.DebtSnapshot;
+import com.finance.loans.model.DebtTotals;
+import com.finance.loans.model.DebtTrend;
+import com.finance.loans.model.KeysetPage;
+import com.finance.loans.model.RegenerationProgress;
 import com.finance.loans.service.DebtSnapshotService;
+import com.finance.loans.service.DebtTotalsService;
+import com.finance.loans.service.DebtTrendService;
+import com.finance.loans.service.SnapshotRegenerationService;
+import com.finance.loans.service.SnapshotReplayEngine;
+import com.finance.loans.service.SnapshotRetentionService;
+import com.finance.loans.web.ConditionalGet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -22,17 +33,46 @@ public class DebtSnapshotController {
     @Autowired
     private DebtSnapshotService snapshotService;
     
+    @Autowired
+    private DebtTotalsService debtTotalsService;
+    
+    @Autowired
+    private DebtTrendService debtTrendService;
+    
+    @Autowired
+    private SnapshotRetentionService retentionService;
+    
+    @Autowired
+    private SnapshotRegenerationService regenerationService;
+    
     /**
      * 获取所有快照
      */
+    @ConditionalGet(DataTable.DEBT_SNAPSHOT)
     @GetMapping
     public ResponseEntity<List<DebtSnapshot>> getAllSnapshots() {
         return ResponseEntity.ok(snapshotService.getAllSnapshots());
     }
     
+    /**
+     * 分页获取快照（键集分页，按日期倒序）
+     */
+    @ConditionalGet(DataTable.DEBT_SNAPSHOT)
+    @GetMapping("/page")
+    public ResponseEntity<KeysetPage<DebtSnapshot>> getSnapshotPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(snapshotService.getSnapshotPage(cursor, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * 获取最新快照
      */
+    @ConditionalGet(DataTable.DEBT_SNAPSHOT)
     @GetMapping("/latest")
     public ResponseEntity<DebtSnapshot> getLatestSnapshot() {
         DebtSnapshot snapshot = snapshotService.getLatestSnapshot();
@@ -45,6 +85,7 @@ public class DebtSnapshotController {
     /**
      * 获取最近N天的快照
      */
+    @ConditionalGet(DataTable.DEBT_SNAPSHOT)
     @GetMapping("/recent/{days}")
     public ResponseEntity<List<DebtSnapshot>> getRecentSnapshots(@PathVariable int days) {
         return ResponseEntity.ok(snapshotService.getRecentSnapshots(days));
@@ -53,6 +94,7 @@ public class DebtSnapshotController {
     /**
      * 获取指定日期范围的快照
      */
+    @ConditionalGet(DataTable.DEBT_SNAPSHOT)
     @GetMapping("/range")
     public ResponseEntity<List<DebtSnapshot>> getSnapshotsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -61,12 +103,32 @@ public class DebtSnapshotController {
     }
     
     /**
-     * 手动创建快照
+     * 获取负债趋势（点数不超过 maxPoints，超出时自动改用按周/按月汇总或 LTTB 降采样）
+     */
+    @ConditionalGet(DataTable.DEBT_SNAPSHOT)
+    @GetMapping("/trend")
+    public ResponseEntity<DebtTrend> getTrend(
+            @RequestParam(defaultValue = "90") int days,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "" + DebtTrendService.DEFAULT_MAX_POINTS) int maxPoints,
+            @RequestParam(defaultValue = "false") boolean lttb) {
+        LocalDate endDate = to != null ? to : LocalDate.now();
+        LocalDate startDate = from != null ? from : endDate.minusDays(Math.max(0, days));
+        if (startDate.isAfter(endDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(debtTrendService.getTrend(startDate, endDate, maxPoints, lttb));
+    }
+    
+    /**
+     * 手动创建快照（类型与定时任务一致：每月1号为月快照、每周一为周快照）
      */
     @PostMapping("/create")
     public ResponseEntity<Map<String, String>> createSnapshot() {
         try {
-            snapshotService.createSnapshot(LocalDate.now(), "daily");
+            LocalDate today = LocalDate.now();
+            snapshotService.createSnapshot(today, SnapshotReplayEngine.snapshotTypeOf(today));
             Map<String, String> response = new HashMap<>();
             response.put("message", "快照创建成功");
             return ResponseEntity.ok(response);
@@ -78,14 +140,79 @@ public class DebtSnapshotController {
     }
     
     /**
-     * 重新生成所有历史快照数据
+     * 重新生成所有历史快照数据（异步分段执行，返回任务ID）
      */
     @PostMapping("/regenerate")
     public ResponseEntity<Map<String, Object>> regenerateSnapshots() {
         try {
-            int count = snapshotService.regenerateHistoricalSnapshots();
+            RegenerationProgress progress = regenerationService.start();
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "已开始重新生成快照数据，可按 jobId 查询进度");
+            response.put("jobId", progress.getJobId());
+            response.put("progress", progress);
+            return ResponseEntity.accepted().body(response);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    /**
+     * 查询重新生成任务进度
+     */
+    @GetMapping("/regenerate/{jobId}")
+    public ResponseEntity<RegenerationProgress> getRegenerationProgress(@PathVariable String jobId) {
+        RegenerationProgress progress = regenerationService.getProgress(jobId);
+        if (progress == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(progress);
+    }
+    
+    /**
+     * 取消重新生成任务
+     */
+    @PostMapping("/regenerate/{jobId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelRegeneration(@PathVariable String jobId) {
+        try {
             Map<String, Object> response = new HashMap<>();
-            response.put("message", "成功重新生成" + count + "条快照数据");
+            response.put("message", "已请求取消，正在写入的分段完成后停止");
+            response.put("progress", regenerationService.cancel(jobId));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    /**
+     * 续跑已取消或失败的重新生成任务
+     */
+    @PostMapping("/regenerate/{jobId}/resume")
+    public ResponseEntity<Map<String, Object>> resumeRegeneration(@PathVariable String jobId) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "已开始续跑未完成的分段");
+            response.put("progress", regenerationService.resume(jobId));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    /**
+     * 由全部快照重建按周/按月汇总
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRollups() {
+        try {
+            int count = debtTrendService.rebuildRollups();
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "成功重建" + count + "条汇总数据");
             response.put("count", count);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -94,4 +221,42 @@ public class DebtSnapshotController {
             return ResponseEntity.badRequest().body(error);
         }
     }
+    
+    /**
+     * 立即执行快照保留策略（压缩旧快照、维护分区）
+     */
+    @PostMapping("/retention/run")
+    public ResponseEntity<Map<String, Object>> runRetention() {
+        try {
+            return ResponseEntity.ok(retentionService.applyRetention(LocalDate.now()));
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    /**
+     * 获取当前负债累计值
+     */
+    @GetMapping("/totals")
+    public ResponseEntity<DebtTotals> getCurrentTotals() {
+        return ResponseEntity.ok(debtTotalsService.getCurrentTotals());
+    }
+    
+    /**
+     * 检查负债累计值与全量计算结果是否一致
+     */
+    @GetMapping("/totals/check")
+    public ResponseEntity<Map<String, Object>> checkTotals() {
+        return ResponseEntity.ok(debtTotalsService.checkConsistency());
+    }
+    
+    /**
+     * 用全量计算结果重建负债累计值
+     */
+    @PostMapping("/totals/rebuild")
+    public ResponseEntity<DebtTotals> rebuildTotals() {
+        return ResponseEntity.ok(debtTotalsService.rebuild());
+    }
 }
@@ -0,0 +1,61 @@
+package com.finance.loans.controller;
+
+import com.finance.loans.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * 数据导出控制器
+ */
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+    
+    @Autowired
+    private ExportService exportService;
+    
+    /**
+     * 导出还款计划（format: csv / ndjson）
+     */
+    @GetMapping("/schedules")
+    public ResponseEntity<StreamingResponseBody> exportSchedules(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) Long loanId) {
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+        return attachment("repayment-schedules", exportFormat,
+                out -> exportService.exportSchedules(loanId, exportFormat, out));
+    }
+    
+    /**
+     * 导出还款记录（format: csv / ndjson）
+     */
+    @GetMapping("/payment-records")
+    public ResponseEntity<StreamingResponseBody> exportPaymentRecords(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) Long loanId) {
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+        return attachment("payment-records", exportFormat,
+                out -> exportService.exportPaymentRecords(loanId, exportFormat, out));
+    }
+    
+    /**
+     * 不支持的导出格式
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadFormat(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    
+    private ResponseEntity<StreamingResponseBody> attachment(String name, ExportService.Format format,
+                                                             StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + name + "." + format.getExtension() + "\"")
+                .body(body);
+    }
+}
@@ -1,7 +1,13 @@
 package com.finance.loans.controller;
 
+import com.finance.loans.event.DataTable;
+import com.finance.loans.model.KeysetPage;
 import com.finance.loans.model.Loan;
+import com.finance.loans.model.LoanBreakdown;
+import com.finance.loans.service.LoanImportService;
 import com.finance.loans.service.LoanService;
+import com.finance.loans.service.LoanStatisticsService;
+import com.finance.loans.web.ConditionalGet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -20,17 +26,49 @@ public class LoanController {
     @Autowired
     private LoanService loanService;
     
+    @Autowired
+    private LoanImportService loanImportService;
+    
+    @Autowired
+    private LoanStatisticsService loanStatisticsService;
+    
     /**
-     * 获取所有贷款
+     * 获取所有贷款，stats=true 时附带每笔贷款的统计
      */
+    @ConditionalGet({DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE, DataTable.LOAN_STATISTICS})
     @GetMapping
-    public ResponseEntity<List<Loan>> getAllLoans() {
-        return ResponseEntity.ok(loanService.getAllLoans());
+    public ResponseEntity<List<Loan>> getAllLoans(@RequestParam(defaultValue = "false") boolean stats) {
+        List<Loan> loans = loanService.getAllLoans();
+        if (stats) {
+            loanStatisticsService.attach(loans);
+        }
+        return ResponseEntity.ok(loans);
+    }
+    
+    /**
+     * 分页获取贷款（键集分页，按创建时间倒序），stats=true 时附带每笔贷款的统计
+     */
+    @ConditionalGet({DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE, DataTable.LOAN_STATISTICS})
+    @GetMapping("/page")
+    public ResponseEntity<KeysetPage<Loan>> getLoanPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean stats) {
+        try {
+            KeysetPage<Loan> page = loanService.getLoanPage(cursor, limit);
+            if (stats) {
+                loanStatisticsService.attach(page.getItems());
+            }
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
      * 获取活跃贷款
      */
+    @ConditionalGet(DataTable.LOAN)
     @GetMapping("/active")
     public ResponseEntity<List<Loan>> getActiveLoans() {
         return ResponseEntity.ok(loanService.getActiveLoans());
@@ -39,6 +77,7 @@ public class LoanController {
     /**
      * 根据ID获取贷款
      */
+    @ConditionalGet(DataTable.LOAN)
     @GetMapping("/{id}")
     public ResponseEntity<Loan> getLoanById(@PathVariable Long id) {
         Loan loan = loanService.getLoanById(id);
@@ -61,6 +100,22 @@ public class LoanController {
         }
     }
     
+    /**
+     * 批量导入贷款（JSON 数组），返回逐行结果
+     */
+    @PostMapping(value = "/import", consumes = "application/json")
+    public ResponseEntity<Map<String, Object>> importLoans(@RequestBody List<Loan> loans) {
+        return ResponseEntity.ok(loanImportService.importLoans(loans));
+    }
+    
+    /**
+     * 批量导入贷款（CSV，首行为表头），返回逐行结果
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<Map<String, Object>> importLoansCsv(@RequestBody String csv) {
+        return ResponseEntity.ok(loanImportService.importCsv(csv));
+    }
+    
     /**
      * 更新贷款
      */
@@ -109,8 +164,36 @@ public class LoanController {
     /**
      * 获取贷款统计
      */
+    @ConditionalGet({DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE})
     @GetMapping("/summary")
     public ResponseEntity<Map<String, Object>> getLoanSummary() {
         return ResponseEntity.ok(loanService.getLoanSummary());
     }
+    
+    /**
+     * 获取每笔活跃贷款的统计明细
+     */
+    @ConditionalGet({DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE})
+    @GetMapping("/summary/by-loan")
+    public ResponseEntity<List<LoanBreakdown>> getLoanBreakdown() {
+        return ResponseEntity.ok(loanService.getLoanBreakdown());
+    }
+    
+    /**
+     * 全量重建贷款统计
+     */
+    @PostMapping("/statistics/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildStatistics() {
+        try {
+            int count = loanStatisticsService.rebuild();
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "贷款统计已重建");
+            response.put("count", count);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
 }
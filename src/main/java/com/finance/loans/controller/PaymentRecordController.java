@@ -1,7 +1,10 @@
 package com.finance.loans.controller;
 
+import com.finance.loans.event.DataTable;
+import com.finance.loans.model.KeysetPage;
 import com.finance.loans.model.PaymentRecord;
 import com.finance.loans.service.PaymentRecordService;
+import com.finance.loans.web.ConditionalGet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,14 +24,32 @@ public class PaymentRecordController {
     /**
      * 获取贷款的还款记录
      */
+    @ConditionalGet(DataTable.PAYMENT_RECORD)
     @GetMapping("/loan/{loanId}")
     public ResponseEntity<List<PaymentRecord>> getLoanRecords(@PathVariable Long loanId) {
         return ResponseEntity.ok(recordService.getLoanRecords(loanId));
     }
     
+    /**
+     * 分页获取贷款的还款记录（键集分页，按还款日期倒序）
+     */
+    @ConditionalGet(DataTable.PAYMENT_RECORD)
+    @GetMapping("/loan/{loanId}/page")
+    public ResponseEntity<KeysetPage<PaymentRecord>> getLoanRecordPage(
+            @PathVariable Long loanId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(recordService.getLoanRecordPage(loanId, cursor, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * 获取本月还款记录
      */
+    @ConditionalGet(DataTable.PAYMENT_RECORD)
     @GetMapping("/current-month")
     public ResponseEntity<List<PaymentRecord>> getCurrentMonthRecords() {
         return ResponseEntity.ok(recordService.getCurrentMonthRecords());
@@ -37,6 +58,7 @@ public class PaymentRecordController {
     /**
      * 获取指定月份的还款记录
      */
+    @ConditionalGet(DataTable.PAYMENT_RECORD)
     @GetMapping("/month/{year}/{month}")
     public ResponseEntity<List<PaymentRecord>> getMonthRecords(
             @PathVariable int year, 
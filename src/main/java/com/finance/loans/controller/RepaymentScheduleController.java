@@ -1,7 +1,14 @@
 package com.finance.loans.controller;
 
+import com.finance.loans.event.DataTable;
+import com.finance.loans.model.CalendarDay;
+import com.finance.loans.model.KeysetPage;
+import com.finance.loans.model.LoanScheduleColumns;
+import com.finance.loans.model.LoanScheduleRow;
+import com.finance.loans.model.PaymentRecord;
 import com.finance.loans.model.RepaymentSchedule;
 import com.finance.loans.service.RepaymentScheduleService;
+import com.finance.loans.web.ConditionalGet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -9,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,28 +28,102 @@ import java.util.Map;
 @RequestMapping("/api/schedules")
 public class RepaymentScheduleController {
     
+    /** 日历接口单次最多查询的月数 */
+    private static final int MAX_CALENDAR_MONTHS = 24;
+    
     @Autowired
     private RepaymentScheduleService scheduleService;
     
     /**
      * 获取贷款的还款计划
      */
+    @ConditionalGet(DataTable.REPAYMENT_SCHEDULE)
     @GetMapping("/loan/{loanId}")
     public ResponseEntity<List<RepaymentSchedule>> getLoanSchedules(@PathVariable Long loanId) {
         return ResponseEntity.ok(scheduleService.getLoanSchedules(loanId));
     }
     
+    /**
+     * 分页获取贷款的还款计划（键集分页，按期数升序）
+     */
+    @ConditionalGet(DataTable.REPAYMENT_SCHEDULE)
+    @GetMapping("/loan/{loanId}/page")
+    public ResponseEntity<KeysetPage<RepaymentSchedule>> getLoanSchedulePage(
+            @PathVariable Long loanId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(scheduleService.getLoanSchedulePage(loanId, cursor, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * 一次获取多笔贷款的还款计划（列式，按贷款分组）
+     * 可选过滤：贷款状态、计划状态（可多个）、应还日期区间（含首尾）
+     */
+    @ConditionalGet({DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE})
+    @GetMapping("/all")
+    public ResponseEntity<List<LoanScheduleColumns>> getAllSchedules(
+            @RequestParam(required = false) String loanStatus,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(scheduleService.getAllSchedules(loanStatus, status, from, to));
+    }
+    
+    /**
+     * 获取多个月的日历汇总（每天的应还/已还/待还/逾期笔数与金额）
+     * 支持 If-None-Match，贷款和还款计划未变化时返回 304（不访问数据库）
+     */
+    @ConditionalGet({DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE})
+    @GetMapping("/calendar")
+    public ResponseEntity<List<CalendarDay>> getCalendarDays(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        if (to.isBefore(from) || from.plusMonths(MAX_CALENDAR_MONTHS).isBefore(to.plusMonths(1))) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(scheduleService.getCalendarDays(from, to));
+    }
+    
+    /**
+     * 获取日期区间（含首尾）内的还款计划明细，日历按天或按月按需加载
+     * 支持 If-None-Match，贷款和还款计划未变化时返回 304（不访问数据库）
+     */
+    @ConditionalGet({DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE})
+    @GetMapping("/calendar/rows")
+    public ResponseEntity<List<LoanScheduleRow>> getCalendarRows(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from) || from.plusMonths(MAX_CALENDAR_MONTHS).isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(scheduleService.getCalendarRows(from, to));
+    }
+    
     /**
      * 获取待还计划
      */
+    @ConditionalGet(DataTable.REPAYMENT_SCHEDULE)
     @GetMapping("/loan/{loanId}/pending")
     public ResponseEntity<List<RepaymentSchedule>> getPendingSchedules(@PathVariable Long loanId) {
         return ResponseEntity.ok(scheduleService.getPendingSchedules(loanId));
     }
     
+    /**
+     * 获取今天应还的待还计划
+     */
+    @GetMapping("/today")
+    public ResponseEntity<List<RepaymentSchedule>> getTodayPendingSchedules() {
+        return ResponseEntity.ok(scheduleService.getTodayPendingSchedules());
+    }
+    
     /**
      * 获取本月还款计划
      */
+    @ConditionalGet(DataTable.REPAYMENT_SCHEDULE)
     @GetMapping("/current-month")
     public ResponseEntity<List<RepaymentSchedule>> getCurrentMonthSchedules() {
         return ResponseEntity.ok(scheduleService.getCurrentMonthSchedules());
@@ -50,6 +132,7 @@ public class RepaymentScheduleController {
     /**
      * 获取指定月份的还款计划
      */
+    @ConditionalGet(DataTable.REPAYMENT_SCHEDULE)
     @GetMapping("/month/{year}/{month}")
     public ResponseEntity<List<RepaymentSchedule>> getMonthSchedules(
             @PathVariable int year, 
@@ -62,17 +145,39 @@ public class RepaymentScheduleController {
      * 记录还款
      */
     @PostMapping("/{scheduleId}/pay")
-    public ResponseEntity<Map<String, String>> recordPayment(
+    public ResponseEntity<Map<String, Object>> recordPayment(
             @PathVariable Long scheduleId,
             @RequestParam BigDecimal amount,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate paymentDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate paymentDate,
+            @RequestParam(required = false) Integer version,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            scheduleService.recordPayment(scheduleId, amount, paymentDate);
-            Map<String, String> response = new HashMap<>();
+            PaymentRecord record = scheduleService.recordPayment(scheduleId, amount, paymentDate,
+                    idempotencyKey, version);
+            Map<String, Object> response = new HashMap<>();
             response.put("message", "还款记录成功");
+            response.put("recordId", record.getId());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    /**
+     * 立即把应还日期已过的待还计划标记为逾期
+     */
+    @PostMapping("/mark-overdue")
+    public ResponseEntity<Map<String, Object>> markOverdue() {
+        try {
+            int count = scheduleService.markOverdue();
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "逾期标记完成");
+            response.put("count", count);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
+            Map<String, Object> error = new HashMap<>();
             error.put("error", e.getMessage());
             return ResponseEntity.badRequest().body(error);
         }
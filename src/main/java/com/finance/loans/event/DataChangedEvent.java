@@ -0,0 +1,63 @@
+package com.finance.loans.event;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 数据变更事件
+ *
+ * 由修改数据的服务方法在事务内发布，事务提交后由缓存等监听方处理。
+ * 记录变更涉及的表、贷款ID以及还款计划所在月份，监听方据此只处理受影响的部分。
+ */
+public class DataChangedEvent {
+    
+    private final Set<DataTable> tables;
+    
+    private final Set<Long> loanIds = new HashSet<>();
+    
+    private final Set<YearMonth> months = new HashSet<>();
+    
+    public DataChangedEvent(DataTable first, DataTable... rest) {
+        this.tables = EnumSet.of(first, rest);
+    }
+    
+    /**
+     * 添加受影响的贷款
+     */
+    public DataChangedEvent loan(Long loanId) {
+        if (loanId != null) {
+            loanIds.add(loanId);
+        }
+        return this;
+    }
+    
+    /**
+     * 添加受影响的月份（按还款计划的应还日期）
+     */
+    public DataChangedEvent month(LocalDate date) {
+        if (date != null) {
+            months.add(YearMonth.from(date));
+        }
+        return this;
+    }
+    
+    public boolean affects(DataTable table) {
+        return tables.contains(table);
+    }
+    
+    public Set<DataTable> getTables() {
+        return Collections.unmodifiableSet(tables);
+    }
+    
+    public Set<Long> getLoanIds() {
+        return Collections.unmodifiableSet(loanIds);
+    }
+    
+    public Set<YearMonth> getMonths() {
+        return Collections.unmodifiableSet(months);
+    }
+}
@@ -0,0 +1,22 @@
+package com.finance.loans.event;
+
+/**
+ * 业务数据表
+ */
+public enum DataTable {
+    
+    /** 贷款主表 */
+    LOAN,
+    
+    /** 还款计划表 */
+    REPAYMENT_SCHEDULE,
+    
+    /** 还款记录表 */
+    PAYMENT_RECORD,
+    
+    /** 负债快照表 */
+    DEBT_SNAPSHOT,
+    
+    /** 贷款统计表（随贷款、还款计划在同一事务内刷新，只有全量重建时单独变更） */
+    LOAN_STATISTICS
+}
@@ -1,6 +1,7 @@
 package com.finance.loans.mapper;
 
 import com.finance.loans.model.DebtSnapshot;
+import com.finance.loans.model.TablePartition;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -18,6 +19,13 @@ public interface DebtSnapshotMapper {
      */
     List<DebtSnapshot> findAll();
     
+    /**
+     * 键集分页查询快照（按日期、ID 倒序），afterDate 为空时从第一页开始
+     */
+    List<DebtSnapshot> findPage(@Param("afterDate") LocalDate afterDate,
+                                @Param("afterId") Long afterId,
+                                @Param("limit") int limit);
+    
     /**
      * 查询指定日期范围的快照
      */
@@ -38,13 +46,58 @@ public interface DebtSnapshotMapper {
      */
     int insert(DebtSnapshot snapshot);
     
+    /**
+     * 批量插入快照
+     */
+    int batchInsert(@Param("list") List<DebtSnapshot> snapshots);
+    
     /**
      * 删除指定日期之前的快照
      */
     int deleteBeforeDate(@Param("date") LocalDate date);
     
+    /**
+     * 删除指定日期范围（含首尾）的快照
+     */
+    int deleteByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    /**
+     * 删除指定类型、指定日期之前的快照
+     */
+    int deleteTypeBeforeDate(@Param("snapshotType") String snapshotType, @Param("date") LocalDate date);
+    
+    /**
+     * 指定日期之前最早的某类型快照日期，没有时返回 null
+     */
+    LocalDate findEarliestDateBeforeDate(@Param("snapshotType") String snapshotType, @Param("date") LocalDate date);
+    
+    /**
+     * [fromDate, date) 内没有月快照的月份，把该月最早的日快照改为月快照（fromDate 应为月初）
+     */
+    int markMonthlyBetween(@Param("fromDate") LocalDate fromDate, @Param("date") LocalDate date);
+    
+    /**
+     * [fromDate, date) 内没有周快照的周，把该周最早的日快照改为周快照（fromDate 应为周一）
+     */
+    int markWeeklyBetween(@Param("fromDate") LocalDate fromDate, @Param("date") LocalDate date);
+    
     /**
      * 删除所有快照
      */
     int deleteAll();
+    
+    /**
+     * 查询快照表的分区（未分区时为空）
+     */
+    List<TablePartition> findPartitions();
+    
+    /**
+     * 从 p_future 拆出一个新分区
+     */
+    void addPartition(@Param("name") String name, @Param("lessThan") String lessThan);
+    
+    /**
+     * 删除分区（连同其中的数据）
+     */
+    void dropPartition(@Param("name") String name);
 }
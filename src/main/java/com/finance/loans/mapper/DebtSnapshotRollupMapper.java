@@ -0,0 +1,37 @@
+package com.finance.loans.mapper;
+
+import com.finance.loans.model.DebtSnapshotRollup;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 负债快照汇总 Mapper 接口
+ */
+@Mapper
+public interface DebtSnapshotRollupMapper {
+    
+    /**
+     * 查询指定粒度、周期开始日期在区间内（含首尾）的汇总，按日期升序
+     */
+    List<DebtSnapshotRollup> findRange(@Param("resolution") String resolution,
+                                       @Param("startDate") LocalDate startDate,
+                                       @Param("endDate") LocalDate endDate);
+    
+    /**
+     * 批量写入汇总（已存在的周期覆盖）
+     */
+    int batchUpsert(@Param("list") List<DebtSnapshotRollup> rollups);
+    
+    /**
+     * 删除周期开始日期不早于指定日期的汇总
+     */
+    int deleteFrom(@Param("startDate") LocalDate startDate);
+    
+    /**
+     * 删除所有汇总
+     */
+    int deleteAll();
+}
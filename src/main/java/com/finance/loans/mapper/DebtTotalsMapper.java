@@ -0,0 +1,26 @@
+package com.finance.loans.mapper;
+
+import com.finance.loans.model.DebtTotals;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 负债累计值 Mapper 接口（单行表）
+ */
+@Mapper
+public interface DebtTotalsMapper {
+    
+    /**
+     * 查询累计值
+     */
+    DebtTotals find();
+    
+    /**
+     * 保存累计值（不存在则插入，存在则覆盖）
+     */
+    int save(DebtTotals totals);
+    
+    /**
+     * 按增量调整累计值
+     */
+    int applyDelta(DebtTotals delta);
+}
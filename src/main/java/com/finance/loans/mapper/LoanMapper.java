@@ -1,9 +1,12 @@
 package com.finance.loans.mapper;
 
 import com.finance.loans.model.Loan;
+import com.finance.loans.model.LoanStatusSummary;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,6 +20,13 @@ public interface LoanMapper {
      */
     List<Loan> findAll();
     
+    /**
+     * 键集分页查询贷款（按创建时间、ID 倒序），afterCreatedAt 为空时从第一页开始
+     */
+    List<Loan> findPage(@Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                        @Param("afterId") Long afterId,
+                        @Param("limit") int limit);
+    
     /**
      * 根据状态查询贷款
      */
@@ -27,11 +37,21 @@ public interface LoanMapper {
      */
     Loan findById(@Param("id") Long id);
     
+    /**
+     * 根据ID列表查询贷款
+     */
+    List<Loan> findByIds(@Param("ids") Collection<Long> ids);
+    
     /**
      * 插入贷款
      */
     int insert(Loan loan);
     
+    /**
+     * 批量插入贷款（多行 INSERT，回填自增ID）
+     */
+    int batchInsert(@Param("list") List<Loan> loans);
+    
     /**
      * 更新贷款
      */
@@ -46,4 +66,9 @@ public interface LoanMapper {
      * 统计贷款数量
      */
     int countByStatus(@Param("status") String status);
+    
+    /**
+     * 按状态汇总贷款数量、本金和月还款额
+     */
+    List<LoanStatusSummary> summarizeByStatus();
 }
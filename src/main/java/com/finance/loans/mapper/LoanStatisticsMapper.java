@@ -0,0 +1,35 @@
+package com.finance.loans.mapper;
+
+import com.finance.loans.model.LoanStatistics;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 贷款统计 Mapper 接口
+ */
+@Mapper
+public interface LoanStatisticsMapper {
+    
+    /**
+     * 按贷款ID（主键）批量查询统计
+     */
+    List<LoanStatistics> findByLoanIds(@Param("loanIds") Collection<Long> loanIds);
+    
+    /**
+     * 从还款计划重新聚合指定贷款的统计（已存在的行覆盖；已删除的贷款由外键级联删除）
+     */
+    int refreshByLoanIds(@Param("loanIds") Collection<Long> loanIds);
+    
+    /**
+     * 从还款计划重新聚合全部贷款的统计
+     */
+    int refreshAll();
+    
+    /**
+     * 删除所有统计
+     */
+    int deleteAll();
+}
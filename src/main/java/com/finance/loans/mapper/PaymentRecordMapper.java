@@ -2,6 +2,7 @@ package com.finance.loans.mapper;
 
 import com.finance.loans.model.PaymentRecord;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.annotations.Param;
 
 import java.time.LocalDate;
@@ -13,26 +14,63 @@ import java.util.List;
 @Mapper
 public interface PaymentRecordMapper {
     
+    /**
+     * 查询所有还款记录
+     */
+    List<PaymentRecord> findAll();
+    
+    /**
+     * 流式读取还款记录（loanId 为空时读取全部），须在事务内遍历
+     */
+    Cursor<PaymentRecord> streamAll(@Param("loanId") Long loanId);
+    
     /**
      * 根据贷款ID查询还款记录
      */
     List<PaymentRecord> findByLoanId(@Param("loanId") Long loanId);
     
+    /**
+     * 键集分页查询贷款的还款记录（按还款日期、ID 倒序），afterDate 为空时从第一页开始
+     */
+    List<PaymentRecord> findPageByLoanId(@Param("loanId") Long loanId,
+                                         @Param("afterDate") LocalDate afterDate,
+                                         @Param("afterId") Long afterId,
+                                         @Param("limit") int limit);
+    
     /**
      * 查询指定月份的还款记录
+     * 按半开区间 [monthStart, nextMonthStart) 过滤，可走 payment_date 索引
      */
-    List<PaymentRecord> findByMonth(@Param("year") int year, @Param("month") int month);
+    List<PaymentRecord> findByMonth(@Param("monthStart") LocalDate monthStart,
+                                    @Param("nextMonthStart") LocalDate nextMonthStart);
     
     /**
      * 查询指定日期范围的还款记录
      */
     List<PaymentRecord> findByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
+    /**
+     * 根据幂等键查询还款记录
+     */
+    PaymentRecord findByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
+    
+    /**
+     * 根据幂等键查询最新已提交的还款记录（加共享锁的当前读，不受事务快照影响）
+     */
+    PaymentRecord findCommittedByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
+    
     /**
      * 插入还款记录
      */
     int insert(PaymentRecord record);
     
+    /**
+     * 按还款计划批量生成还款记录（金额取计划应还金额）
+     */
+    int insertFromSchedules(@Param("scheduleIds") List<Long> scheduleIds,
+                            @Param("paymentDate") LocalDate paymentDate,
+                            @Param("paymentType") String paymentType);
+    
     /**
      * 根据ID查询
      */
@@ -1,11 +1,17 @@
 package com.finance.loans.mapper;
 
+import com.finance.loans.model.CalendarDay;
+import com.finance.loans.model.LoanScheduleRow;
 import com.finance.loans.model.RepaymentSchedule;
+import com.finance.loans.model.ScheduleAggregate;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,11 +20,33 @@ import java.util.List;
 @Mapper
 public interface RepaymentScheduleMapper {
     
+    /**
+     * 查询所有还款计划
+     */
+    List<RepaymentSchedule> findAll();
+    
+    /**
+     * 流式读取还款计划（loanId 为空时读取全部），须在事务内遍历
+     */
+    Cursor<RepaymentSchedule> streamAll(@Param("loanId") Long loanId);
+    
     /**
      * 根据贷款ID查询还款计划
      */
     List<RepaymentSchedule> findByLoanId(@Param("loanId") Long loanId);
     
+    /**
+     * 键集分页查询贷款的还款计划（按期数升序，走 uk_loan_period），afterPeriod 为空时从第一页开始
+     */
+    List<RepaymentSchedule> findPageByLoanId(@Param("loanId") Long loanId,
+                                             @Param("afterPeriod") Integer afterPeriod,
+                                             @Param("limit") int limit);
+    
+    /**
+     * 查询多笔贷款的还款计划（按贷款、期数升序）
+     */
+    List<RepaymentSchedule> findByLoanIds(@Param("loanIds") Collection<Long> loanIds);
+    
     /**
      * 根据贷款ID和状态查询还款计划
      */
@@ -26,8 +54,25 @@ public interface RepaymentScheduleMapper {
     
     /**
      * 查询指定月份的还款计划 (在 XML 中定义)
+     * 按半开区间 [monthStart, nextMonthStart) 过滤，可走 due_date 索引
+     */
+    List<RepaymentSchedule> findByMonth(@Param("monthStart") LocalDate monthStart,
+                                        @Param("nextMonthStart") LocalDate nextMonthStart);
+    
+    /**
+     * 联表查询还款计划及所属贷款，按贷款、期数排序
+     * 各条件为空时不过滤，应还日期按半开区间 [fromDate, beforeDate) 过滤
      */
-    List<RepaymentSchedule> findByMonth(@Param("year") int year, @Param("month") int month);
+    List<LoanScheduleRow> findWithLoan(@Param("loanStatus") String loanStatus,
+                                       @Param("statuses") Collection<String> statuses,
+                                       @Param("fromDate") LocalDate fromDate,
+                                       @Param("beforeDate") LocalDate beforeDate);
+    
+    /**
+     * 按应还日期汇总 [fromDate, beforeDate) 内的还款计划，只返回有计划的日期
+     */
+    List<CalendarDay> sumByDay(@Param("fromDate") LocalDate fromDate,
+                               @Param("beforeDate") LocalDate beforeDate);
     
     /**
      * 查询今天应还且状态为pending的还款计划
@@ -37,6 +82,31 @@ public interface RepaymentScheduleMapper {
             "ORDER BY id ASC")
     List<RepaymentSchedule> findTodayPending(@Param("today") LocalDate today);
     
+    /**
+     * 按ID顺序锁定一批指定日期应还且状态为pending的还款计划
+     */
+    List<RepaymentSchedule> lockDuePendingBatch(@Param("dueDate") LocalDate dueDate,
+                                                @Param("afterId") Long afterId,
+                                                @Param("limit") int limit);
+    
+    /**
+     * 锁定贷款的全部还款计划（按期数升序），须在事务内调用
+     */
+    List<RepaymentSchedule> lockByLoanId(@Param("loanId") Long loanId);
+    
+    /**
+     * 按应还日期、ID顺序锁定一批应还日期在 [fromDate, beforeDate) 内且状态为pending的还款计划
+     * fromDate 为空时不限下界
+     */
+    List<RepaymentSchedule> lockPendingDueBefore(@Param("fromDate") LocalDate fromDate,
+                                                 @Param("beforeDate") LocalDate beforeDate,
+                                                 @Param("limit") int limit);
+    
+    /**
+     * 把仍为pending的计划标记为逾期
+     */
+    int markOverdue(@Param("ids") List<Long> ids);
+    
     /**
      * 查询指定日期范围的还款计划
      */
@@ -57,12 +127,29 @@ public interface RepaymentScheduleMapper {
      */
     int update(RepaymentSchedule schedule);
     
+    /**
+     * 把未还的计划更新为已还（expectedVersion 不为空时同时校验版本），返回受影响行数
+     */
+    int markPaid(@Param("id") Long id, @Param("paidDate") LocalDate paidDate,
+                 @Param("paidAmount") BigDecimal paidAmount, @Param("expectedVersion") Integer expectedVersion);
+    
     /**
      * 批量更新状态
      */
     int batchUpdateStatus(@Param("ids") List<Long> ids, @Param("status") String status, 
                           @Param("paidDate") LocalDate paidDate);
     
+    /**
+     * 按ID批量更新应还日期、金额、状态和实还信息（单条 CASE 语句）
+     * 只更新未还且版本与 version 一致的行，返回受影响行数
+     */
+    int batchUpdate(@Param("list") List<RepaymentSchedule> schedules);
+    
+    /**
+     * 按ID批量删除未还的计划，返回删除行数
+     */
+    int deleteUnpaidByIds(@Param("ids") List<Long> ids);
+    
     /**
      * 删除贷款的所有计划
      */
@@ -72,4 +159,24 @@ public interface RepaymentScheduleMapper {
      * 根据ID查询
      */
     RepaymentSchedule findById(@Param("id") Long id);
+    
+    /**
+     * 根据ID查询最新已提交的计划（加共享锁的当前读，不受事务快照影响）
+     */
+    RepaymentSchedule findCommittedById(@Param("id") Long id);
+    
+    /**
+     * 根据ID查询计划及所属贷款
+     */
+    LoanScheduleRow findRowById(@Param("id") Long id);
+    
+    /**
+     * 按贷款和计划状态分组汇总（loanStatus 为空时不过滤贷款状态）
+     */
+    List<ScheduleAggregate> aggregateByLoanAndStatus(@Param("loanStatus") String loanStatus);
+    
+    /**
+     * 按计划状态分组汇总指定贷款的还款计划
+     */
+    List<ScheduleAggregate> aggregateByLoanIds(@Param("loanIds") Collection<Long> loanIds);
 }
@@ -0,0 +1,215 @@
+package com.finance.loans.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyBatis 语句级指标插件
+ *
+ * 拦截 Executor 的查询与更新，按映射语句（Mapper + 方法）记录：
+ * - loans.sql.statement：耗时（Timer，可选百分位直方图）
+ * - loans.sql.rows：返回行数（查询）或影响行数（更新），游标查询不记录
+ * - loans.sql.errors：执行失败次数
+ * 耗时和行数按 sample-rate 抽样记录，失败次数与慢语句日志不抽样；
+ * 耗时达到 slow-threshold-ms 的语句输出一条 WARN（只含 SQL 文本，不含参数）。
+ * 只有开启 loans.sql-metrics.enabled 时才注册，关闭时不在调用链上。
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "queryCursor",
+                args = {MappedStatement.class, Object.class, RowBounds.class})
+})
+public class SqlMetricsInterceptor implements Interceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlMetricsInterceptor.class);
+
+    private final MeterRegistry registry;
+
+    private final double sampleRate;
+
+    private final long slowThresholdNanos;
+
+    private final boolean histogram;
+
+    /** 映射语句ID -> 该语句的指标（首次执行时注册） */
+    private final ConcurrentMap<String, StatementMeters> meters = new ConcurrentHashMap<>();
+
+    public SqlMetricsInterceptor(MeterRegistry registry, double sampleRate, long slowThresholdMillis,
+                                 boolean histogram) {
+        this.registry = registry;
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+        this.slowThresholdNanos = slowThresholdMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis) : 0;
+        this.histogram = histogram;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement statement = (MappedStatement) args[0];
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            metersOf(statement).errors.increment();
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long rows = rowCount(result);
+        if (sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            StatementMeters statementMeters = metersOf(statement);
+            statementMeters.timer.record(elapsed, TimeUnit.NANOSECONDS);
+            if (rows >= 0) {
+                statementMeters.rows.record(rows);
+            }
+        }
+        if (slowThresholdNanos > 0 && elapsed >= slowThresholdNanos) {
+            logger.warn("慢 SQL {} 耗时 {} ms，{} 行: {}", statement.getId(), TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    rows >= 0 ? rows : "-", sqlOf(statement, args));
+        }
+        return result;
+    }
+
+    /**
+     * 已注册的各语句指标
+     */
+    public Collection<StatementMeters> statements() {
+        return meters.values();
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getSlowThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos);
+    }
+
+    private StatementMeters metersOf(MappedStatement statement) {
+        StatementMeters statementMeters = meters.get(statement.getId());
+        if (statementMeters == null) {
+            statementMeters = meters.computeIfAbsent(statement.getId(), id -> new StatementMeters(statement));
+        }
+        return statementMeters;
+    }
+
+    /**
+     * 查询返回行数或更新影响行数，其他结果（游标）返回 -1
+     */
+    private static long rowCount(Object result) {
+        if (result instanceof List<?> list) {
+            return list.size();
+        }
+        if (result instanceof Integer count) {
+            return count;
+        }
+        return -1;
+    }
+
+    private static String sqlOf(MappedStatement statement, Object[] args) {
+        BoundSql boundSql = args.length > 5 ? (BoundSql) args[5] : statement.getBoundSql(args[1]);
+        return boundSql.getSql().replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * 一条映射语句的指标
+     */
+    public final class StatementMeters {
+
+        private final String mapper;
+
+        private final String method;
+
+        private final String type;
+
+        private final Timer timer;
+
+        private final DistributionSummary rows;
+
+        private final Counter errors;
+
+        StatementMeters(MappedStatement statement) {
+            String id = statement.getId();
+            int dot = id.lastIndexOf('.');
+            String namespace = dot >= 0 ? id.substring(0, dot) : "";
+            this.mapper = namespace.substring(namespace.lastIndexOf('.') + 1);
+            this.method = id.substring(dot + 1);
+            this.type = statement.getSqlCommandType().name();
+            this.timer = Timer.builder("loans.sql.statement")
+                    .description("MyBatis 映射语句耗时")
+                    .tag("mapper", mapper)
+                    .tag("statement", method)
+                    .tag("type", type)
+                    .publishPercentileHistogram(histogram)
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry);
+            this.rows = DistributionSummary.builder("loans.sql.rows")
+                    .description("MyBatis 映射语句返回或影响的行数")
+                    .baseUnit("rows")
+                    .tag("mapper", mapper)
+                    .tag("statement", method)
+                    .tag("type", type)
+                    .register(registry);
+            this.errors = Counter.builder("loans.sql.errors")
+                    .description("MyBatis 映射语句执行失败次数")
+                    .tag("mapper", mapper)
+                    .tag("statement", method)
+                    .tag("type", type)
+                    .register(registry);
+        }
+
+        public String getMapper() {
+            return mapper;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public Timer getTimer() {
+            return timer;
+        }
+
+        public DistributionSummary getRows() {
+            return rows;
+        }
+
+        public Counter getErrors() {
+            return errors;
+        }
+    }
+}
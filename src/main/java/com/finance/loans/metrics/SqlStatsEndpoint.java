@@ -0,0 +1,58 @@
+package com.finance.loans.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL 语句统计端点（/actuator/sqlstats）
+ *
+ * 按累计耗时倒序列出各映射语句的执行次数、累计/平均/最大耗时、行数与失败次数，
+ * 用于找出占请求时间最多的语句；单条语句的百分位直方图见 /actuator/metrics/loans.sql.statement。
+ */
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+    private final SqlMetricsInterceptor interceptor;
+
+    public SqlStatsEndpoint(SqlMetricsInterceptor interceptor) {
+        this.interceptor = interceptor;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statements() {
+        List<SqlMetricsInterceptor.StatementMeters> sorted = new ArrayList<>(interceptor.statements());
+        sorted.sort(Comparator.comparingDouble(
+                (SqlMetricsInterceptor.StatementMeters meters) -> meters.getTimer().totalTime(TimeUnit.MILLISECONDS))
+                .reversed());
+
+        List<Map<String, Object>> statements = new ArrayList<>();
+        for (SqlMetricsInterceptor.StatementMeters meters : sorted) {
+            Timer timer = meters.getTimer();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("mapper", meters.getMapper());
+            row.put("statement", meters.getMethod());
+            row.put("type", meters.getType());
+            row.put("count", timer.count());
+            row.put("totalMillis", timer.totalTime(TimeUnit.MILLISECONDS));
+            row.put("meanMillis", timer.mean(TimeUnit.MILLISECONDS));
+            row.put("maxMillis", timer.max(TimeUnit.MILLISECONDS));
+            row.put("rows", (long) meters.getRows().totalAmount());
+            row.put("errors", (long) meters.getErrors().count());
+            statements.add(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sampleRate", interceptor.getSampleRate());
+        result.put("slowThresholdMillis", interceptor.getSlowThresholdMillis());
+        result.put("statements", statements);
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+package com.finance.loans.model;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 日历单日汇总
+ */
+@Data
+public class CalendarDay {
+    
+    /** 应还日期 */
+    private LocalDate date;
+    
+    /** 应还笔数 */
+    private int dueCount;
+    
+    /** 已还笔数 */
+    private int paidCount;
+    
+    /** 待还笔数 */
+    private int pendingCount;
+    
+    /** 逾期笔数 */
+    private int overdueCount;
+    
+    /** 应还金额 */
+    private BigDecimal dueAmount = BigDecimal.ZERO;
+    
+    /** 已还金额（实还金额，缺失时取应还金额） */
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+    
+    /** 待还金额 */
+    private BigDecimal pendingAmount = BigDecimal.ZERO;
+    
+    /** 逾期金额 */
+    private BigDecimal overdueAmount = BigDecimal.ZERO;
+}
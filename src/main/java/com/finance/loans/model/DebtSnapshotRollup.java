@@ -0,0 +1,57 @@
+package com.finance.loans.model;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 负债快照汇总（按周 / 按月）
+ *
+ * 各金额与数量取周期内最后一天的快照（期末值），另记录剩余金额的最小、最大值。
+ */
+@Data
+public class DebtSnapshotRollup {
+    
+    /** 粒度: weekly-按周(周一开始), monthly-按月 */
+    private String resolution;
+    
+    /** 周期开始日期 */
+    private LocalDate periodStart;
+    
+    /** 周期内最后一个快照的日期 */
+    private LocalDate periodEnd;
+    
+    /** 周期内快照天数 */
+    private Integer sampleCount;
+    
+    /** 总负债 */
+    private BigDecimal totalDebt;
+    
+    /** 总本金 */
+    private BigDecimal totalPrincipal;
+    
+    /** 已还总额 */
+    private BigDecimal paidAmount;
+    
+    /** 剩余总额 */
+    private BigDecimal remainingAmount;
+    
+    /** 周期内最小剩余总额 */
+    private BigDecimal minRemainingAmount;
+    
+    /** 周期内最大剩余总额 */
+    private BigDecimal maxRemainingAmount;
+    
+    /** 活跃贷款数量 */
+    private Integer activeLoans;
+    
+    /** 已结清贷款数量 */
+    private Integer completedLoans;
+    
+    /** 月还款总额 */
+    private BigDecimal monthlyPayment;
+    
+    /** 更新时间 */
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,77 @@
+package com.finance.loans.model;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 负债累计值（也用于表示增量）
+ */
+@Data
+public class DebtTotals {
+    
+    /** 总本金 */
+    private BigDecimal totalPrincipal = BigDecimal.ZERO;
+    
+    /** 已还总额 */
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+    
+    /** 剩余总额(活跃贷款的未还金额) */
+    private BigDecimal remainingAmount = BigDecimal.ZERO;
+    
+    /** 月还款总额 */
+    private BigDecimal monthlyPayment = BigDecimal.ZERO;
+    
+    /** 活跃贷款数量 */
+    private Integer activeLoans = 0;
+    
+    /** 已结清贷款数量 */
+    private Integer completedLoans = 0;
+    
+    /** 更新时间 */
+    private LocalDateTime updatedAt;
+    
+    /**
+     * 两个累计值相加
+     */
+    public DebtTotals plus(DebtTotals other) {
+        DebtTotals result = new DebtTotals();
+        result.setTotalPrincipal(totalPrincipal.add(other.getTotalPrincipal()));
+        result.setPaidAmount(paidAmount.add(other.getPaidAmount()));
+        result.setRemainingAmount(remainingAmount.add(other.getRemainingAmount()));
+        result.setMonthlyPayment(monthlyPayment.add(other.getMonthlyPayment()));
+        result.setActiveLoans(activeLoans + other.getActiveLoans());
+        result.setCompletedLoans(completedLoans + other.getCompletedLoans());
+        return result;
+    }
+    
+    /**
+     * 两个累计值相减
+     */
+    public DebtTotals minus(DebtTotals other) {
+        DebtTotals result = new DebtTotals();
+        result.setTotalPrincipal(totalPrincipal.subtract(other.getTotalPrincipal()));
+        result.setPaidAmount(paidAmount.subtract(other.getPaidAmount()));
+        result.setRemainingAmount(remainingAmount.subtract(other.getRemainingAmount()));
+        result.setMonthlyPayment(monthlyPayment.subtract(other.getMonthlyPayment()));
+        result.setActiveLoans(activeLoans - other.getActiveLoans());
+        result.setCompletedLoans(completedLoans - other.getCompletedLoans());
+        return result;
+    }
+    
+    /**
+     * 是否所有数值都为零
+     */
+    public boolean isZero() {
+        return totalPrincipal.signum() == 0 && paidAmount.signum() == 0
+            && remainingAmount.signum() == 0 && monthlyPayment.signum() == 0
+            && activeLoans == 0 && completedLoans == 0;
+    }
+    
+    /**
+     * 数值是否与另一个累计值一致（忽略金额精度差异）
+     */
+    public boolean sameValues(DebtTotals other) {
+        return minus(other).isZero();
+    }
+}
@@ -0,0 +1,24 @@
+package com.finance.loans.model;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 负债趋势数据
+ */
+@Data
+public class DebtTrend {
+    
+    /** 实际使用的粒度: daily / weekly / monthly / lttb(每日数据降采样) */
+    private String resolution;
+    
+    /** 开始日期 */
+    private LocalDate startDate;
+    
+    /** 结束日期 */
+    private LocalDate endDate;
+    
+    /** 数据点（按日期升序；按周/按月时日期为周期开始日，数值为期末值） */
+    private List<DebtSnapshot> points;
+}
@@ -0,0 +1,82 @@
+package com.finance.loans.model;
+
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 键集（seek）分页结果
+ *
+ * 游标是最后一条记录排序键的不透明编码，下一页从该键之后继续读取，
+ * 不使用 OFFSET，翻到任意深度查询代价都相同。nextCursor 为空表示没有更多数据。
+ */
+@Data
+public class KeysetPage<T> {
+    
+    /** 默认每页条数 */
+    public static final int DEFAULT_LIMIT = 50;
+    
+    /** 每页最大条数 */
+    public static final int MAX_LIMIT = 500;
+    
+    /** 本页数据 */
+    private List<T> items;
+    
+    /** 下一页游标 */
+    private String nextCursor;
+    
+    /**
+     * 由多查询一条的结果构建分页：rows 多于 limit 条时说明还有下一页
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, String> cursorOf) {
+        KeysetPage<T> page = new KeysetPage<>();
+        if (rows.size() > limit) {
+            page.setItems(new ArrayList<>(rows.subList(0, limit)));
+            page.setNextCursor(cursorOf.apply(rows.get(limit - 1)));
+        } else {
+            page.setItems(rows);
+        }
+        return page;
+    }
+    
+    /**
+     * 把每页条数限制在 [1, MAX_LIMIT]
+     */
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+    
+    /**
+     * 编码游标
+     */
+    public static String encodeCursor(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                raw.append('|');
+            }
+            raw.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解码游标，格式不对时抛出 IllegalArgumentException
+     */
+    public static String[] decodeCursor(String cursor, int keyCount) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = raw.split("\\|", -1);
+            if (keys.length == keyCount) {
+                return keys;
+            }
+        } catch (IllegalArgumentException e) {
+            // 落到下面统一抛出
+        }
+        throw new IllegalArgumentException("无效的分页游标: " + cursor);
+    }
+}
@@ -46,4 +46,7 @@ public class Loan {
     
     /** 更新时间 */
     private LocalDateTime updatedAt;
+    
+    /** 统计（非表字段，列表接口 stats=true 时填充） */
+    private LoanStatistics statistics;
 }
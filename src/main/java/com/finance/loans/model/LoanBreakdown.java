@@ -0,0 +1,41 @@
+package com.finance.loans.model;
+
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * 单笔贷款的统计明细
+ */
+@Data
+public class LoanBreakdown {
+    
+    /** 贷款ID */
+    private Long loanId;
+    
+    /** 贷款名称 */
+    private String name;
+    
+    /** 贷款平台 */
+    private String platform;
+    
+    /** 借款本金 */
+    private BigDecimal principal;
+    
+    /** 月还款额 */
+    private BigDecimal monthlyAmount;
+    
+    /** 已还期数 */
+    private int paidPeriods;
+    
+    /** 待还期数 */
+    private int pendingPeriods;
+    
+    /** 逾期期数 */
+    private int overduePeriods;
+    
+    /** 已还金额 */
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+    
+    /** 剩余负债(待还+逾期) */
+    private BigDecimal remainingDebt = BigDecimal.ZERO;
+}
@@ -0,0 +1,28 @@
+package com.finance.loans.model;
+
+import lombok.Data;
+
+/**
+ * 批量导入中单行贷款的处理结果
+ */
+@Data
+public class LoanImportResult {
+    
+    /** 行号（JSON 数组下标从1开始；CSV 为文件行号，含表头） */
+    private int row;
+    
+    /** 贷款名称 */
+    private String name;
+    
+    /** 是否导入成功 */
+    private boolean success;
+    
+    /** 新贷款ID */
+    private Long loanId;
+    
+    /** 生成的还款计划期数 */
+    private int schedulePeriods;
+    
+    /** 失败原因 */
+    private String message;
+}
@@ -0,0 +1,50 @@
+package com.finance.loans.model;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单笔贷款的还款计划（列式）
+ *
+ * 各列表下标一一对应同一期计划，按期数升序，
+ * 避免每期计划重复输出字段名和贷款信息。
+ */
+@Data
+public class LoanScheduleColumns {
+    
+    /** 贷款ID */
+    private Long loanId;
+    
+    /** 贷款名称 */
+    private String name;
+    
+    /** 贷款平台 */
+    private String platform;
+    
+    /** 月还款额 */
+    private BigDecimal monthlyAmount;
+    
+    /** 总期数 */
+    private Integer totalPeriods;
+    
+    /** 贷款状态 */
+    private String status;
+    
+    /** 还款计划ID */
+    private List<Long> ids = new ArrayList<>();
+    
+    /** 期数 */
+    private List<Integer> periods = new ArrayList<>();
+    
+    /** 应还日期 */
+    private List<LocalDate> dueDates = new ArrayList<>();
+    
+    /** 应还金额 */
+    private List<BigDecimal> amounts = new ArrayList<>();
+    
+    /** 还款状态 */
+    private List<String> statuses = new ArrayList<>();
+}
@@ -0,0 +1,51 @@
+package com.finance.loans.model;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 还款计划与所属贷款的联表查询行
+ */
+@Data
+public class LoanScheduleRow {
+    
+    /** 贷款ID */
+    private Long loanId;
+    
+    /** 贷款名称 */
+    private String loanName;
+    
+    /** 贷款平台 */
+    private String platform;
+    
+    /** 月还款额 */
+    private BigDecimal monthlyAmount;
+    
+    /** 总期数 */
+    private Integer totalPeriods;
+    
+    /** 贷款状态 */
+    private String loanStatus;
+    
+    /** 还款计划ID */
+    private Long scheduleId;
+    
+    /** 期数 */
+    private Integer period;
+    
+    /** 应还日期 */
+    private LocalDate dueDate;
+    
+    /** 应还金额 */
+    private BigDecimal amount;
+    
+    /** 还款状态 */
+    private String status;
+    
+    /** 实际还款日期 */
+    private LocalDate paidDate;
+    
+    /** 实际还款金额 */
+    private BigDecimal paidAmount;
+}
@@ -0,0 +1,43 @@
+package com.finance.loans.model;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 贷款统计（loan_statistics 表，每笔贷款一行）
+ */
+@Data
+public class LoanStatistics {
+    
+    /** 贷款ID */
+    private Long loanId;
+    
+    /** 计划总期数 */
+    private int totalScheduleCount;
+    
+    /** 已还期数 */
+    private int paidPeriods;
+    
+    /** 待还期数 */
+    private int pendingPeriods;
+    
+    /** 逾期期数 */
+    private int overduePeriods;
+    
+    /** 已还总额（实还金额，缺失时取应还金额） */
+    private BigDecimal totalPaidAmount;
+    
+    /** 剩余金额（待还 + 逾期） */
+    private BigDecimal remainingAmount;
+    
+    /** 最后一期应还日期 */
+    private LocalDate lastDueDate;
+    
+    /** 下次应还日期（最早的未还计划） */
+    private LocalDate nextDueDate;
+    
+    /** 更新时间 */
+    private LocalDateTime updatedAt;
+}
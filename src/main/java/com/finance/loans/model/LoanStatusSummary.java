@@ -0,0 +1,23 @@
+package com.finance.loans.model;
+
+import com.finance.loans.money.Money;
+import lombok.Data;
+
+/**
+ * 按贷款状态汇总的统计结果
+ */
+@Data
+public class LoanStatusSummary {
+    
+    /** 贷款状态 */
+    private String status;
+    
+    /** 贷款数量 */
+    private Integer loanCount;
+    
+    /** 本金合计 */
+    private Money totalPrincipal;
+    
+    /** 月还款额合计 */
+    private Money totalMonthlyAmount;
+}
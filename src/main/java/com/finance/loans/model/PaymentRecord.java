@@ -32,6 +32,9 @@ public class PaymentRecord {
     /** 备注 */
     private String note;
     
+    /** 幂等键（客户端生成，同一键只记录一次） */
+    private String idempotencyKey;
+    
     /** 创建时间 */
     private LocalDateTime createdAt;
 }
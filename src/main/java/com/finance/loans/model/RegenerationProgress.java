@@ -0,0 +1,42 @@
+package com.finance.loans.model;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 快照重新生成任务进度
+ */
+@Data
+public class RegenerationProgress {
+
+    /** 任务ID */
+    private String jobId;
+
+    /** 状态: running-运行中, cancelling-取消中, cancelled-已取消, failed-失败, completed-完成 */
+    private String status;
+
+    /** 重新生成的起始日期 */
+    private LocalDate startDate;
+
+    /** 重新生成的结束日期 */
+    private LocalDate endDate;
+
+    /** 分段总数 */
+    private int totalShards;
+
+    /** 已完成分段数 */
+    private int completedShards;
+
+    /** 已写入快照行数 */
+    private long rowsWritten;
+
+    /** 开始时间 */
+    private LocalDateTime startedAt;
+
+    /** 结束时间 */
+    private LocalDateTime finishedAt;
+
+    /** 失败原因 */
+    private String error;
+}
@@ -35,6 +35,9 @@ public class RepaymentSchedule {
     /** 实际还款金额 */
     private BigDecimal paidAmount;
     
+    /** 版本号（每次更新加一，用于乐观并发控制） */
+    private Integer version;
+    
     /** 创建时间 */
     private LocalDateTime createdAt;
     
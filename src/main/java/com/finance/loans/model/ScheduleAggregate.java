@@ -0,0 +1,26 @@
+package com.finance.loans.model;
+
+import com.finance.loans.money.Money;
+import lombok.Data;
+
+/**
+ * 按贷款和计划状态分组的还款计划汇总
+ */
+@Data
+public class ScheduleAggregate {
+    
+    /** 贷款ID */
+    private Long loanId;
+    
+    /** 计划状态: pending-待还, paid-已还, overdue-逾期 */
+    private String status;
+    
+    /** 期数 */
+    private Integer periodCount;
+    
+    /** 应还金额合计 */
+    private Money totalAmount;
+    
+    /** 实还金额合计(未记录实还金额时按应还金额计) */
+    private Money totalPaidAmount;
+}
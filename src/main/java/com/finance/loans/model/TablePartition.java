@@ -0,0 +1,19 @@
+package com.finance.loans.model;
+
+import lombok.Data;
+
+/**
+ * 表分区信息（来自 information_schema.PARTITIONS）
+ */
+@Data
+public class TablePartition {
+
+    /** 分区名 */
+    private String partitionName;
+
+    /** 分区上界（VALUES LESS THAN 的值，如 '2026-11-01' 或 MAXVALUE） */
+    private String lessThan;
+
+    /** 估算行数 */
+    private Long tableRows;
+}
@@ -0,0 +1,102 @@
+package com.finance.loans.money;
+
+import java.math.BigDecimal;
+
+/**
+ * 金额（以分为单位的 long，固定两位小数）
+ *
+ * 数据库金额列均为 DECIMAL(x,2)，用 long 保存分即可精确表示；
+ * 加减运算使用 Math.addExact 等方法，溢出时抛出 ArithmeticException，不会静默回绕。
+ */
+public final class Money implements Comparable<Money> {
+
+    /** 小数位数 */
+    public static final int SCALE = 2;
+
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * 由 BigDecimal 转换，超过两位小数或超出 long 范围时抛出 ArithmeticException
+     */
+    public static Money of(BigDecimal value) {
+        return ofCents(toCents(value));
+    }
+
+    /**
+     * BigDecimal 转为分，null 视为 0
+     */
+    public static long toCents(BigDecimal value) {
+        if (value == null) {
+            return 0;
+        }
+        return value.movePointRight(SCALE).longValueExact();
+    }
+
+    /**
+     * 分转为两位小数的 BigDecimal
+     */
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * null 视为 0 时的分值
+     */
+    public static long centsOf(Money value) {
+        return value != null ? value.cents : 0;
+    }
+
+    public long cents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, centsOf(other)));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, centsOf(other)));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public int signum() {
+        return Long.signum(cents);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(cents);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
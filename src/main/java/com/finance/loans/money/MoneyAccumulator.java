@@ -0,0 +1,53 @@
+package com.finance.loans.money;
+
+import java.math.BigDecimal;
+
+/**
+ * 可变的金额累加器
+ *
+ * 聚合循环里逐行累加时只做 long 运算，不产生中间对象；null 视为 0，
+ * 调用方不再需要 nvl。结果在循环结束后一次性转换为 BigDecimal 或 Money。
+ */
+public final class MoneyAccumulator {
+
+    private long cents;
+
+    public MoneyAccumulator add(Money value) {
+        cents = Math.addExact(cents, Money.centsOf(value));
+        return this;
+    }
+
+    public MoneyAccumulator subtract(Money value) {
+        cents = Math.subtractExact(cents, Money.centsOf(value));
+        return this;
+    }
+
+    public MoneyAccumulator addCents(long value) {
+        cents = Math.addExact(cents, value);
+        return this;
+    }
+
+    /**
+     * 累加 BigDecimal（需要先换算成分，适合结果集已是 BigDecimal 的少量数据）
+     */
+    public MoneyAccumulator add(BigDecimal value) {
+        cents = Math.addExact(cents, Money.toCents(value));
+        return this;
+    }
+
+    public long cents() {
+        return cents;
+    }
+
+    public Money toMoney() {
+        return Money.ofCents(cents);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return Money.toBigDecimal(cents);
+    }
+
+    public void reset() {
+        cents = 0;
+    }
+}
@@ -1,17 +1,20 @@
 package com.finance.loans.service;
 
+import com.finance.loans.cache.DashboardCache;
+import com.finance.loans.config.SchedulingConfig;
+import com.finance.loans.event.DataChangedEvent;
+import com.finance.loans.event.DataTable;
 import com.finance.loans.mapper.DebtSnapshotMapper;
-import com.finance.loans.mapper.LoanMapper;
-import com.finance.loans.mapper.RepaymentScheduleMapper;
 import com.finance.loans.model.DebtSnapshot;
-import com.finance.loans.model.Loan;
-import com.finance.loans.model.RepaymentSchedule;
+import com.finance.loans.model.DebtTotals;
+import com.finance.loans.model.KeysetPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -25,10 +28,16 @@ public class DebtSnapshotService {
     private DebtSnapshotMapper snapshotMapper;
     
     @Autowired
-    private LoanMapper loanMapper;
+    private DebtTotalsService debtTotalsService;
     
     @Autowired
-    private RepaymentScheduleMapper scheduleMapper;
+    private DebtTrendService debtTrendService;
+    
+    @Autowired
+    private DashboardCache dashboardCache;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     /**
      * 获取所有快照
@@ -37,11 +46,28 @@ public class DebtSnapshotService {
         return snapshotMapper.findAll();
     }
     
+    /**
+     * 分页查询快照（按日期倒序），cursor 为空时返回第一页
+     */
+    public KeysetPage<DebtSnapshot> getSnapshotPage(String cursor, int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        LocalDate afterDate = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = KeysetPage.decodeCursor(cursor, 2);
+            afterDate = LocalDate.parse(keys[0]);
+            afterId = Long.valueOf(keys[1]);
+        }
+        List<DebtSnapshot> rows = snapshotMapper.findPage(afterDate, afterId, pageSize + 1);
+        return KeysetPage.of(rows, pageSize,
+                snapshot -> KeysetPage.encodeCursor(snapshot.getSnapshotDate(), snapshot.getId()));
+    }
+    
     /**
      * 获取最新快照
      */
     public DebtSnapshot getLatestSnapshot() {
-        return snapshotMapper.findLatest();
+        return dashboardCache.latestSnapshot(snapshotMapper::findLatest);
     }
     
     /**
@@ -64,60 +90,16 @@ public class DebtSnapshotService {
      * 创建每日快照（定时任务，每天凌晨执行）
      */
     @Scheduled(cron = "0 0 0 * * ?")
+    @Async(SchedulingConfig.SNAPSHOT_EXECUTOR)
     @Transactional
     public void createDailySnapshot() {
-        createSnapshot(LocalDate.now(), "daily");
-    }
-    
-    /**
-     * 重新生成历史快照数据（从贷款创建日期到今天）
-     */
-    @Transactional
-    public int regenerateHistoricalSnapshots() {
-        // 删除所有现有快照
-        snapshotMapper.deleteAll();
-        
-        // 获取所有贷款中最早的开始日期
-        List<Loan> allLoans = loanMapper.findAll();
-        if (allLoans.isEmpty()) {
-            return 0;
-        }
-        
-        LocalDate earliestDate = LocalDate.now();
-        for (Loan loan : allLoans) {
-            if (loan.getStartDate() != null && loan.getStartDate().isBefore(earliestDate)) {
-                earliestDate = loan.getStartDate();
-            }
-        }
-        
-        int count = 0;
-        LocalDate currentDate = earliestDate;
+        // 每月1号、每周一记为月/周快照，保留策略压缩旧数据时直接保留这些行
         LocalDate today = LocalDate.now();
-        
-        // 生成每日快照
-        while (!currentDate.isAfter(today)) {
-            String type = "daily";
-            
-            // 每周一创建周快照
-            if (currentDate.getDayOfWeek().getValue() == 1) {
-                type = "weekly";
-            }
-            
-            // 每月1号创建月快照
-            if (currentDate.getDayOfMonth() == 1) {
-                type = "monthly";
-            }
-            
-            createSnapshot(currentDate, type);
-            count++;
-            currentDate = currentDate.plusDays(1);
-        }
-        
-        return count;
+        createSnapshot(today, SnapshotReplayEngine.snapshotTypeOf(today));
     }
     
     /**
-     * 手动创建快照
+     * 手动创建快照（复制当前负债累计值）
      */
     @Transactional
     public DebtSnapshot createSnapshot(LocalDate date, String type) {
@@ -127,48 +109,24 @@ public class DebtSnapshotService {
             return existing;
         }
         
-        // 计算统计数据
-        List<Loan> allLoans = loanMapper.findAll();
-        List<Loan> activeLoans = loanMapper.findByStatus("active");
-        
-        BigDecimal totalPrincipal = BigDecimal.ZERO;
-        BigDecimal monthlyPayment = BigDecimal.ZERO;
-        BigDecimal paidAmount = BigDecimal.ZERO;
-        BigDecimal remainingAmount = BigDecimal.ZERO;
-        
-        for (Loan loan : allLoans) {
-            totalPrincipal = totalPrincipal.add(loan.getPrincipal() != null ? loan.getPrincipal() : BigDecimal.ZERO);
-            
-            // 计算已还金额
-            List<RepaymentSchedule> paidSchedules = scheduleMapper.findByLoanIdAndStatus(loan.getId(), "paid");
-            for (RepaymentSchedule schedule : paidSchedules) {
-                paidAmount = paidAmount.add(schedule.getPaidAmount() != null ? schedule.getPaidAmount() : BigDecimal.ZERO);
-            }
-        }
-        
-        for (Loan loan : activeLoans) {
-            monthlyPayment = monthlyPayment.add(loan.getMonthlyAmount() != null ? loan.getMonthlyAmount() : BigDecimal.ZERO);
-            
-            // 计算剩余金额
-            List<RepaymentSchedule> pendingSchedules = scheduleMapper.findByLoanIdAndStatus(loan.getId(), "pending");
-            for (RepaymentSchedule schedule : pendingSchedules) {
-                remainingAmount = remainingAmount.add(schedule.getAmount());
-            }
-        }
+        // 直接复制当前累计值
+        DebtTotals totals = debtTotalsService.getCurrentTotals();
         
         // 创建快照
         DebtSnapshot snapshot = new DebtSnapshot();
         snapshot.setSnapshotDate(date);
-        snapshot.setTotalDebt(remainingAmount);
-        snapshot.setTotalPrincipal(totalPrincipal);
-        snapshot.setPaidAmount(paidAmount);
-        snapshot.setRemainingAmount(remainingAmount);
-        snapshot.setActiveLoans(activeLoans.size());
-        snapshot.setCompletedLoans(loanMapper.countByStatus("completed"));
-        snapshot.setMonthlyPayment(monthlyPayment);
+        snapshot.setTotalDebt(totals.getRemainingAmount());
+        snapshot.setTotalPrincipal(totals.getTotalPrincipal());
+        snapshot.setPaidAmount(totals.getPaidAmount());
+        snapshot.setRemainingAmount(totals.getRemainingAmount());
+        snapshot.setActiveLoans(totals.getActiveLoans());
+        snapshot.setCompletedLoans(totals.getCompletedLoans());
+        snapshot.setMonthlyPayment(totals.getMonthlyPayment());
         snapshot.setSnapshotType(type);
         
         snapshotMapper.insert(snapshot);
+        debtTrendService.refreshRollups(date, date);
+        eventPublisher.publishEvent(new DataChangedEvent(DataTable.DEBT_SNAPSHOT));
         
         return snapshot;
     }
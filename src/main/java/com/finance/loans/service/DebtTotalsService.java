@@ -0,0 +1,237 @@
+package com.finance.loans.service;
+
+import com.finance.loans.mapper.DebtTotalsMapper;
+import com.finance.loans.mapper.LoanMapper;
+import com.finance.loans.mapper.RepaymentScheduleMapper;
+import com.finance.loans.model.DebtTotals;
+import com.finance.loans.model.Loan;
+import com.finance.loans.model.LoanStatusSummary;
+import com.finance.loans.model.ScheduleAggregate;
+import com.finance.loans.money.MoneyAccumulator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 负债累计值服务
+ *
+ * 维护一份随业务写操作按增量调整的负债累计值：持久化在 debt_totals 单行表中（迁移 001 初始化），
+ * 内存中保留一份副本。写操作在自身事务内只调整数据库行，事务提交后让内存副本失效，
+ * 下次读取时从已提交的数据重新加载；每日快照直接复制当前累计值，不再扫描全部贷款和还款计划。
+ */
+@Service
+public class DebtTotalsService {
+    
+    @Autowired
+    private DebtTotalsMapper totalsMapper;
+    
+    @Autowired
+    private LoanMapper loanMapper;
+    
+    @Autowired
+    private RepaymentScheduleMapper scheduleMapper;
+    
+    /** 内存中的累计值（只保存已提交的数据），为空时下次读取重新加载 */
+    private DebtTotals current;
+    
+    /**
+     * 获取当前累计值
+     * 内存副本为空时从数据库加载（累计行缺失时全量计算并保存）；
+     * 在事务内读到的值可能包含该事务未提交的写入，只返回不缓存
+     */
+    public synchronized DebtTotals getCurrentTotals() {
+        if (current != null) {
+            return copy(current);
+        }
+        DebtTotals stored = totalsMapper.find();
+        if (stored == null) {
+            stored = recompute();
+            totalsMapper.save(stored);
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            current = stored;
+        }
+        return copy(stored);
+    }
+    
+    /**
+     * 计算指定贷款对累计值的贡献（用于写操作前后对比）
+     */
+    public DebtTotals contributionOf(Collection<Long> loanIds) {
+        DebtTotals totals = new DebtTotals();
+        if (loanIds == null || loanIds.isEmpty()) {
+            return totals;
+        }
+        
+        MoneyAccumulator principal = new MoneyAccumulator();
+        MoneyAccumulator monthlyPayment = new MoneyAccumulator();
+        MoneyAccumulator paidAmount = new MoneyAccumulator();
+        MoneyAccumulator remainingAmount = new MoneyAccumulator();
+        
+        Map<Long, Loan> loans = new HashMap<>();
+        for (Loan loan : loanMapper.findByIds(loanIds)) {
+            loans.put(loan.getId(), loan);
+            principal.add(loan.getPrincipal());
+            if ("active".equals(loan.getStatus())) {
+                totals.setActiveLoans(totals.getActiveLoans() + 1);
+                monthlyPayment.add(loan.getMonthlyAmount());
+            } else if ("completed".equals(loan.getStatus())) {
+                totals.setCompletedLoans(totals.getCompletedLoans() + 1);
+            }
+        }
+        
+        for (ScheduleAggregate row : scheduleMapper.aggregateByLoanIds(loanIds)) {
+            Loan loan = loans.get(row.getLoanId());
+            if (loan == null) {
+                continue;
+            }
+            if ("paid".equals(row.getStatus())) {
+                paidAmount.add(row.getTotalPaidAmount());
+            } else if ("active".equals(loan.getStatus())) {
+                remainingAmount.add(row.getTotalAmount());
+            }
+        }
+        
+        totals.setTotalPrincipal(principal.toBigDecimal());
+        totals.setMonthlyPayment(monthlyPayment.toBigDecimal());
+        totals.setPaidAmount(paidAmount.toBigDecimal());
+        totals.setRemainingAmount(remainingAmount.toBigDecimal());
+        return totals;
+    }
+    
+    /**
+     * 计算单期计划对累计值的贡献（已还计入已还金额，活跃贷款的未还计入剩余金额）
+     * 只改变计划状态的写操作用它代替整笔贷款的聚合
+     */
+    public DebtTotals contributionOf(String loanStatus, String status, BigDecimal amount, BigDecimal paidAmount) {
+        DebtTotals totals = new DebtTotals();
+        if ("paid".equals(status)) {
+            totals.setPaidAmount(paidAmount != null ? paidAmount : amount);
+        } else if ("active".equals(loanStatus)) {
+            totals.setRemainingAmount(amount);
+        }
+        return totals;
+    }
+    
+    /**
+     * 按写操作前后的贡献差调整累计值（须在写操作的事务内调用）
+     * 只在当前事务内调整数据库行，提交后内存副本失效；累计行缺失时不调整，
+     * 下次读取会按已提交的数据全量计算（已包含本次写入）
+     */
+    @Transactional
+    public void applyChange(DebtTotals before, DebtTotals after) {
+        DebtTotals delta = after.minus(before);
+        if (delta.isZero()) {
+            return;
+        }
+        
+        totalsMapper.applyDelta(delta);
+        invalidateAfterCommit();
+    }
+    
+    /**
+     * 全量计算累计值（固定三条聚合 SQL）
+     */
+    public DebtTotals recompute() {
+        DebtTotals totals = new DebtTotals();
+        MoneyAccumulator principal = new MoneyAccumulator();
+        MoneyAccumulator monthlyPayment = new MoneyAccumulator();
+        MoneyAccumulator paidAmount = new MoneyAccumulator();
+        MoneyAccumulator remainingAmount = new MoneyAccumulator();
+        
+        for (LoanStatusSummary row : loanMapper.summarizeByStatus()) {
+            principal.add(row.getTotalPrincipal());
+            if ("active".equals(row.getStatus())) {
+                totals.setActiveLoans(row.getLoanCount());
+                monthlyPayment.add(row.getTotalMonthlyAmount());
+            } else if ("completed".equals(row.getStatus())) {
+                totals.setCompletedLoans(row.getLoanCount());
+            }
+        }
+        
+        // 已还金额统计全部贷款，剩余金额只统计活跃贷款
+        for (ScheduleAggregate row : scheduleMapper.aggregateByLoanAndStatus(null)) {
+            if ("paid".equals(row.getStatus())) {
+                paidAmount.add(row.getTotalPaidAmount());
+            }
+        }
+        for (ScheduleAggregate row : scheduleMapper.aggregateByLoanAndStatus("active")) {
+            if (!"paid".equals(row.getStatus())) {
+                remainingAmount.add(row.getTotalAmount());
+            }
+        }
+        
+        totals.setTotalPrincipal(principal.toBigDecimal());
+        totals.setMonthlyPayment(monthlyPayment.toBigDecimal());
+        totals.setPaidAmount(paidAmount.toBigDecimal());
+        totals.setRemainingAmount(remainingAmount.toBigDecimal());
+        return totals;
+    }
+    
+    /**
+     * 一致性检查：对比累计值与全量计算结果
+     */
+    public Map<String, Object> checkConsistency() {
+        DebtTotals stored = totalsMapper.find();
+        DebtTotals memory = getCurrentTotals();
+        DebtTotals recomputed = recompute();
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("consistent", stored != null && stored.sameValues(recomputed) && memory.sameValues(recomputed));
+        result.put("memory", memory);
+        result.put("stored", stored);
+        result.put("recomputed", recomputed);
+        result.put("difference", memory.minus(recomputed));
+        return result;
+    }
+    
+    /**
+     * 用全量计算结果重建累计值
+     */
+    @Transactional
+    public DebtTotals rebuild() {
+        DebtTotals recomputed = recompute();
+        totalsMapper.save(recomputed);
+        invalidateAfterCommit();
+        return recomputed;
+    }
+    
+    /**
+     * 事务提交后（无事务时立即）让内存副本失效；回滚时保留原副本。
+     * 先于表版本号递增执行，避免新 ETag 配上旧的合计
+     */
+    private void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+                
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+    
+    private synchronized void invalidate() {
+        current = null;
+    }
+    
+    private static DebtTotals copy(DebtTotals totals) {
+        return new DebtTotals().plus(totals);
+    }
+}
@@ -0,0 +1,359 @@
+package com.finance.loans.service;
+
+import com.finance.loans.event.DataChangedEvent;
+import com.finance.loans.event.DataTable;
+import com.finance.loans.mapper.DebtSnapshotMapper;
+import com.finance.loans.mapper.DebtSnapshotRollupMapper;
+import com.finance.loans.model.DebtSnapshot;
+import com.finance.loans.model.DebtSnapshotRollup;
+import com.finance.loans.model.DebtTrend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 负债趋势服务
+ *
+ * 维护按周、按月的快照汇总，并按前端给出的最大点数选择粒度：
+ * 区间天数不超过点数时返回每日快照，否则依次尝试按周、按月汇总；
+ * 仍然超出时（或显式要求时）对数据做 LTTB 降采样，保留曲线形状。
+ */
+@Service
+public class DebtTrendService {
+
+    public static final String DAILY = "daily";
+
+    public static final String WEEKLY = "weekly";
+
+    public static final String MONTHLY = "monthly";
+
+    public static final String LTTB = "lttb";
+
+    /** 默认最大点数 */
+    public static final int DEFAULT_MAX_POINTS = 300;
+
+    /** 批量写入汇总时每条 SQL 的最大行数 */
+    private static final int UPSERT_BATCH_SIZE = 500;
+
+    @Autowired
+    private DebtSnapshotMapper snapshotMapper;
+
+    @Autowired
+    private DebtSnapshotRollupMapper rollupMapper;
+
+    @Autowired
+    private SnapshotRetentionService retentionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 查询趋势数据（含首尾），点数不超过 maxPoints
+     *
+     * @param lttb 区间超出点数时是否直接对每日数据做 LTTB 降采样，而不是使用按周/按月汇总
+     */
+    public DebtTrend getTrend(LocalDate startDate, LocalDate endDate, int maxPoints, boolean lttb) {
+        int budget = Math.max(3, maxPoints);
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+
+        DebtTrend trend = new DebtTrend();
+        trend.setStartDate(startDate);
+        trend.setEndDate(endDate);
+
+        // 保留期之前只剩周/月快照，这部分区间一律读汇总
+        boolean dailyAvailable = !startDate.isBefore(retentionService.dailyCutoff(LocalDate.now()));
+
+        if (dailyAvailable && (days <= budget || lttb)) {
+            List<DebtSnapshot> daily = onePerDay(snapshotMapper.findByDateRange(startDate, endDate));
+            if (daily.size() <= budget) {
+                trend.setResolution(DAILY);
+                trend.setPoints(daily);
+            } else {
+                trend.setResolution(LTTB);
+                trend.setPoints(downsampleLttb(daily, budget));
+            }
+            return trend;
+        }
+
+        String resolution = days / 7 + 1 <= budget ? WEEKLY : MONTHLY;
+        List<DebtSnapshot> points = new ArrayList<>();
+        for (DebtSnapshotRollup rollup : rollupMapper.findRange(resolution, periodStart(resolution, startDate), endDate)) {
+            points.add(toPoint(rollup));
+        }
+        trend.setResolution(resolution);
+        trend.setPoints(points.size() > budget ? downsampleLttb(points, budget) : points);
+        return trend;
+    }
+
+    /**
+     * 重新计算覆盖指定日期区间的周、月汇总（快照新增或修改后调用）
+     */
+    @Transactional
+    public void refreshRollups(LocalDate fromDate, LocalDate toDate) {
+        LocalDate weekStart = periodStart(WEEKLY, fromDate);
+        LocalDate weekEnd = toDate.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+        LocalDate monthStart = periodStart(MONTHLY, fromDate);
+        LocalDate monthEnd = toDate.with(TemporalAdjusters.lastDayOfMonth());
+
+        LocalDate loadStart = weekStart.isBefore(monthStart) ? weekStart : monthStart;
+        LocalDate loadEnd = weekEnd.isAfter(monthEnd) ? weekEnd : monthEnd;
+        List<DebtSnapshot> snapshots = onePerDay(snapshotMapper.findByDateRange(loadStart, loadEnd));
+
+        List<DebtSnapshotRollup> rollups = new ArrayList<>();
+        rollups.addAll(buildRollups(WEEKLY, between(snapshots, weekStart, weekEnd)));
+        rollups.addAll(buildRollups(MONTHLY, between(snapshots, monthStart, monthEnd)));
+        upsert(rollups);
+    }
+
+    /**
+     * 由现有快照重建汇总
+     *
+     * 保留期之前的每日快照已被压缩，只重建周期开始日期不早于保留起点的汇总，更早的汇总保持不变。
+     * 提交后趋势接口的版本随之变化，条件请求不会继续返回旧数据。
+     */
+    @Transactional
+    public int rebuildRollups() {
+        LocalDate fromDate = retentionService.dailyCutoff(LocalDate.now());
+        List<DebtSnapshot> daily = onePerDay(snapshotMapper.findByDateRange(fromDate, LocalDate.now()));
+
+        List<DebtSnapshotRollup> rollups = new ArrayList<>();
+        for (DebtSnapshotRollup rollup : buildRollups(WEEKLY, daily)) {
+            if (!rollup.getPeriodStart().isBefore(fromDate)) {
+                rollups.add(rollup);
+            }
+        }
+        for (DebtSnapshotRollup rollup : buildRollups(MONTHLY, daily)) {
+            if (!rollup.getPeriodStart().isBefore(fromDate)) {
+                rollups.add(rollup);
+            }
+        }
+        rollupMapper.deleteFrom(fromDate);
+        upsert(rollups);
+        eventPublisher.publishEvent(new DataChangedEvent(DataTable.DEBT_SNAPSHOT));
+        return rollups.size();
+    }
+
+    /**
+     * 用累积的汇总替换全部汇总
+     */
+    @Transactional
+    public int rebuildRollups(RollupAccumulator accumulator) {
+        rollupMapper.deleteAll();
+        List<DebtSnapshotRollup> rollups = accumulator.rollups();
+        upsert(rollups);
+        return rollups.size();
+    }
+
+    /**
+     * 周期开始日期：按周为周一，按月为1号
+     */
+    public static LocalDate periodStart(String resolution, LocalDate date) {
+        if (MONTHLY.equals(resolution)) {
+            return date.withDayOfMonth(1);
+        }
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /**
+     * 把按日期升序的快照归入周期，取期末值
+     */
+    private static List<DebtSnapshotRollup> buildRollups(String resolution, List<DebtSnapshot> snapshots) {
+        Map<LocalDate, DebtSnapshotRollup> byPeriod = new LinkedHashMap<>();
+        for (DebtSnapshot snapshot : snapshots) {
+            LocalDate start = periodStart(resolution, snapshot.getSnapshotDate());
+            DebtSnapshotRollup rollup = byPeriod.get(start);
+            if (rollup == null) {
+                rollup = new DebtSnapshotRollup();
+                rollup.setResolution(resolution);
+                rollup.setPeriodStart(start);
+                rollup.setSampleCount(0);
+                rollup.setMinRemainingAmount(snapshot.getRemainingAmount());
+                rollup.setMaxRemainingAmount(snapshot.getRemainingAmount());
+                byPeriod.put(start, rollup);
+            }
+            rollup.setPeriodEnd(snapshot.getSnapshotDate());
+            rollup.setSampleCount(rollup.getSampleCount() + 1);
+            rollup.setTotalDebt(snapshot.getTotalDebt());
+            rollup.setTotalPrincipal(snapshot.getTotalPrincipal());
+            rollup.setPaidAmount(snapshot.getPaidAmount());
+            rollup.setRemainingAmount(snapshot.getRemainingAmount());
+            rollup.setActiveLoans(snapshot.getActiveLoans());
+            rollup.setCompletedLoans(snapshot.getCompletedLoans());
+            rollup.setMonthlyPayment(snapshot.getMonthlyPayment());
+            if (snapshot.getRemainingAmount().compareTo(rollup.getMinRemainingAmount()) < 0) {
+                rollup.setMinRemainingAmount(snapshot.getRemainingAmount());
+            }
+            if (snapshot.getRemainingAmount().compareTo(rollup.getMaxRemainingAmount()) > 0) {
+                rollup.setMaxRemainingAmount(snapshot.getRemainingAmount());
+            }
+        }
+        return new ArrayList<>(byPeriod.values());
+    }
+
+    private void upsert(List<DebtSnapshotRollup> rollups) {
+        for (int from = 0; from < rollups.size(); from += UPSERT_BATCH_SIZE) {
+            rollupMapper.batchUpsert(rollups.subList(from, Math.min(from + UPSERT_BATCH_SIZE, rollups.size())));
+        }
+    }
+
+    /**
+     * 同一天有多条快照（不同类型）时只保留最后一条，输入须按日期升序
+     */
+    private static List<DebtSnapshot> onePerDay(List<DebtSnapshot> snapshots) {
+        List<DebtSnapshot> result = new ArrayList<>(snapshots.size());
+        for (DebtSnapshot snapshot : snapshots) {
+            int last = result.size() - 1;
+            if (last >= 0 && result.get(last).getSnapshotDate().equals(snapshot.getSnapshotDate())) {
+                result.set(last, snapshot);
+            } else {
+                result.add(snapshot);
+            }
+        }
+        return result;
+    }
+
+    private static List<DebtSnapshot> between(List<DebtSnapshot> snapshots, LocalDate startDate, LocalDate endDate) {
+        List<DebtSnapshot> result = new ArrayList<>();
+        for (DebtSnapshot snapshot : snapshots) {
+            if (!snapshot.getSnapshotDate().isBefore(startDate) && !snapshot.getSnapshotDate().isAfter(endDate)) {
+                result.add(snapshot);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按周期累积的周、月汇总
+     *
+     * 分段重新生成时每段完成后把该段的每日快照并入，不必把全部每日快照留到最后；
+     * 各段日期不重叠，可以按任意顺序并入，跨段的周期按期末日期合并。占用与周期数成正比。
+     */
+    public static class RollupAccumulator {
+
+        private final Map<LocalDate, DebtSnapshotRollup> weekly = new TreeMap<>();
+
+        private final Map<LocalDate, DebtSnapshotRollup> monthly = new TreeMap<>();
+
+        /**
+         * 并入一段按日期升序的快照
+         */
+        public synchronized void add(List<DebtSnapshot> snapshots) {
+            List<DebtSnapshot> daily = onePerDay(snapshots);
+            for (DebtSnapshotRollup rollup : buildRollups(WEEKLY, daily)) {
+                weekly.merge(rollup.getPeriodStart(), rollup, RollupAccumulator::merge);
+            }
+            for (DebtSnapshotRollup rollup : buildRollups(MONTHLY, daily)) {
+                monthly.merge(rollup.getPeriodStart(), rollup, RollupAccumulator::merge);
+            }
+        }
+
+        /**
+         * 当前的全部汇总（先周后月，各自按周期升序）
+         */
+        public synchronized List<DebtSnapshotRollup> rollups() {
+            List<DebtSnapshotRollup> rollups = new ArrayList<>(weekly.size() + monthly.size());
+            rollups.addAll(weekly.values());
+            rollups.addAll(monthly.values());
+            return rollups;
+        }
+
+        /**
+         * 合并同一周期的两部分：期末值取较晚的一部分，样本数相加，最小/最大值取两者之极
+         */
+        private static DebtSnapshotRollup merge(DebtSnapshotRollup a, DebtSnapshotRollup b) {
+            DebtSnapshotRollup later = b.getPeriodEnd().isAfter(a.getPeriodEnd()) ? b : a;
+            DebtSnapshotRollup earlier = later == a ? b : a;
+            later.setSampleCount(later.getSampleCount() + earlier.getSampleCount());
+            if (earlier.getMinRemainingAmount().compareTo(later.getMinRemainingAmount()) < 0) {
+                later.setMinRemainingAmount(earlier.getMinRemainingAmount());
+            }
+            if (earlier.getMaxRemainingAmount().compareTo(later.getMaxRemainingAmount()) > 0) {
+                later.setMaxRemainingAmount(earlier.getMaxRemainingAmount());
+            }
+            return later;
+        }
+    }
+
+    private static DebtSnapshot toPoint(DebtSnapshotRollup rollup) {
+        DebtSnapshot point = new DebtSnapshot();
+        point.setSnapshotDate(rollup.getPeriodStart());
+        point.setTotalDebt(rollup.getTotalDebt());
+        point.setTotalPrincipal(rollup.getTotalPrincipal());
+        point.setPaidAmount(rollup.getPaidAmount());
+        point.setRemainingAmount(rollup.getRemainingAmount());
+        point.setActiveLoans(rollup.getActiveLoans());
+        point.setCompletedLoans(rollup.getCompletedLoans());
+        point.setMonthlyPayment(rollup.getMonthlyPayment());
+        point.setSnapshotType(rollup.getResolution());
+        return point;
+    }
+
+    /**
+     * LTTB（Largest-Triangle-Three-Buckets）降采样：按剩余金额保留视觉上最重要的点，首尾点始终保留
+     */
+    static List<DebtSnapshot> downsampleLttb(List<DebtSnapshot> data, int threshold) {
+        int size = data.size();
+        if (threshold >= size || threshold < 3) {
+            return data;
+        }
+
+        List<DebtSnapshot> sampled = new ArrayList<>(threshold);
+        double every = (double) (size - 2) / (threshold - 2);
+        int a = 0;
+        sampled.add(data.get(0));
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // 下一个桶的平均点
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, size);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x(data.get(j));
+                avgY += y(data.get(j));
+            }
+            int avgCount = avgEnd - avgStart;
+            avgX /= avgCount;
+            avgY /= avgCount;
+
+            // 当前桶中与上一个选中点、下一桶平均点构成三角形面积最大的点
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double ax = x(data.get(a));
+            double ay = y(data.get(a));
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (y(data.get(j)) - ay) - (ax - x(data.get(j))) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled.add(data.get(next));
+            a = next;
+        }
+
+        sampled.add(data.get(size - 1));
+        return sampled;
+    }
+
+    private static double x(DebtSnapshot snapshot) {
+        return snapshot.getSnapshotDate().toEpochDay();
+    }
+
+    private static double y(DebtSnapshot snapshot) {
+        return snapshot.getRemainingAmount() != null ? snapshot.getRemainingAmount().doubleValue() : 0;
+    }
+}
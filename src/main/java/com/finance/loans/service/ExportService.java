@@ -0,0 +1,172 @@
+package com.finance.loans.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.loans.mapper.PaymentRecordMapper;
+import com.finance.loans.mapper.RepaymentScheduleMapper;
+import com.finance.loans.model.PaymentRecord;
+import com.finance.loans.model.RepaymentSchedule;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * 数据导出服务
+ *
+ * 在只读事务内通过 MyBatis Cursor 逐行读取并直接写入输出流，内存占用与数据量无关；
+ * 每写出一批就 flush，查询未结束时客户端已能收到数据。
+ */
+@Service
+public class ExportService {
+    
+    /** 每写出多少行 flush 一次 */
+    private static final int FLUSH_INTERVAL = 500;
+    
+    /** UTF-8 BOM，便于 Excel 正确识别中文 */
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    
+    private static final String SCHEDULE_HEADER = "id,loan_id,period,due_date,amount,status,paid_date,paid_amount";
+    
+    private static final String RECORD_HEADER = "id,loan_id,schedule_id,amount,payment_date,payment_type,note";
+    
+    @Autowired
+    private RepaymentScheduleMapper scheduleMapper;
+    
+    @Autowired
+    private PaymentRecordMapper recordMapper;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+        
+        private final String contentType;
+        
+        private final String extension;
+        
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+        
+        public String getContentType() {
+            return contentType;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+        
+        public static Format of(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("不支持的导出格式: " + value);
+        }
+    }
+    
+    /**
+     * 导出还款计划
+     */
+    @Transactional(readOnly = true)
+    public void exportSchedules(Long loanId, Format format, OutputStream out) throws IOException {
+        try (Cursor<RepaymentSchedule> cursor = scheduleMapper.streamAll(loanId)) {
+            write(cursor, format, SCHEDULE_HEADER, ExportService::scheduleCsvLine, out);
+        }
+    }
+    
+    /**
+     * 导出还款记录
+     */
+    @Transactional(readOnly = true)
+    public void exportPaymentRecords(Long loanId, Format format, OutputStream out) throws IOException {
+        try (Cursor<PaymentRecord> cursor = recordMapper.streamAll(loanId)) {
+            write(cursor, format, RECORD_HEADER, ExportService::recordCsvLine, out);
+        }
+    }
+    
+    private <T> void write(Cursor<T> cursor, Format format, String csvHeader,
+                           Function<T, String> csvLine, OutputStream out) throws IOException {
+        JsonGenerator generator = null;
+        if (format == Format.CSV) {
+            out.write(UTF8_BOM);
+            writeLine(out, csvHeader);
+        } else {
+            generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+        
+        int count = 0;
+        for (T row : cursor) {
+            if (generator != null) {
+                objectMapper.writeValue(generator, row);
+                generator.writeRaw('\n');
+            } else {
+                writeLine(out, csvLine.apply(row));
+            }
+            
+            if (++count % FLUSH_INTERVAL == 1) {
+                if (generator != null) {
+                    generator.flush();
+                }
+                out.flush();
+            }
+        }
+        
+        if (generator != null) {
+            generator.close();
+        }
+        out.flush();
+    }
+    
+    private static void writeLine(OutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+    
+    private static String scheduleCsvLine(RepaymentSchedule schedule) {
+        return csv(schedule.getId(), schedule.getLoanId(), schedule.getPeriod(), schedule.getDueDate(),
+                schedule.getAmount(), schedule.getStatus(), schedule.getPaidDate(), schedule.getPaidAmount());
+    }
+    
+    private static String recordCsvLine(PaymentRecord record) {
+        return csv(record.getId(), record.getLoanId(), record.getScheduleId(), record.getAmount(),
+                record.getPaymentDate(), record.getPaymentType(), record.getNote());
+    }
+    
+    /**
+     * 拼接一行 CSV，包含逗号、引号或换行的字段加引号转义
+     */
+    private static String csv(Object... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            if (values[i] == null) {
+                continue;
+            }
+            String value = values[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.toString();
+    }
+}
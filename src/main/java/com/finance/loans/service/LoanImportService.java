@@ -0,0 +1,359 @@
+package com.finance.loans.service;
+
+import com.finance.loans.event.DataChangedEvent;
+import com.finance.loans.event.DataTable;
+import com.finance.loans.mapper.LoanMapper;
+import com.finance.loans.mapper.RepaymentScheduleMapper;
+import com.finance.loans.model.DebtTotals;
+import com.finance.loans.model.Loan;
+import com.finance.loans.model.LoanImportResult;
+import com.finance.loans.model.RepaymentSchedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 贷款批量导入服务
+ *
+ * 先逐行校验，再把通过校验的贷款按批处理：每批一个事务，
+ * 多行 INSERT 写入贷款并回填ID，在内存中一次生成本批全部还款计划后分块批量写入。
+ * 某一批写库失败只回滚该批，其余批次照常导入，结果按行返回。
+ */
+@Service
+public class LoanImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanImportService.class);
+
+    /** 还款计划每条 INSERT 的最大行数 */
+    private static final int SCHEDULE_INSERT_SIZE = 500;
+
+    @Autowired
+    private LoanMapper loanMapper;
+
+    @Autowired
+    private RepaymentScheduleMapper scheduleMapper;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private DebtTotalsService debtTotalsService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /** 每批（每个事务）导入的贷款数 */
+    @Value("${loans.import.batch-size:200}")
+    private int importBatchSize;
+
+    /**
+     * 导入 JSON 数组中的贷款
+     */
+    public Map<String, Object> importLoans(List<Loan> loans) {
+        List<LoanImportResult> results = new ArrayList<>();
+        List<Loan> valid = new ArrayList<>();
+        List<LoanImportResult> validResults = new ArrayList<>();
+
+        for (int i = 0; i < loans.size(); i++) {
+            Loan loan = loans.get(i);
+            LoanImportResult result = newResult(i + 1, loan != null ? loan.getName() : null);
+            results.add(result);
+
+            String error = validate(loan);
+            if (error != null) {
+                result.setMessage(error);
+                continue;
+            }
+            valid.add(loan);
+            validResults.add(result);
+        }
+
+        importValid(valid, validResults);
+        return report(results);
+    }
+
+    /**
+     * 导入 CSV 文本中的贷款（首行为表头，列名支持 monthly_amount / monthlyAmount 两种写法）
+     */
+    public Map<String, Object> importCsv(String csv) {
+        List<LoanImportResult> results = new ArrayList<>();
+        List<Loan> valid = new ArrayList<>();
+        List<LoanImportResult> validResults = new ArrayList<>();
+
+        Map<String, Integer> columns = null;
+        for (CsvRecord record : parseCsv(csv.replace("\uFEFF", ""))) {
+            List<String> fields = record.fields;
+            if (columns == null) {
+                columns = new HashMap<>();
+                for (int c = 0; c < fields.size(); c++) {
+                    columns.put(normalizeColumn(fields.get(c)), c);
+                }
+                continue;
+            }
+
+            LoanImportResult result = newResult(record.line, field(fields, columns, "name"));
+            results.add(result);
+
+            Loan loan;
+            try {
+                loan = toLoan(fields, columns);
+            } catch (RuntimeException e) {
+                result.setMessage("格式错误: " + e.getMessage());
+                continue;
+            }
+            String error = validate(loan);
+            if (error != null) {
+                result.setMessage(error);
+                continue;
+            }
+            valid.add(loan);
+            validResults.add(result);
+        }
+
+        importValid(valid, validResults);
+        return report(results);
+    }
+
+    /**
+     * 按批导入已通过校验的贷款
+     */
+    private void importValid(List<Loan> loans, List<LoanImportResult> results) {
+        int batchSize = Math.max(1, importBatchSize);
+        LocalDate today = LocalDate.now();
+
+        for (int from = 0; from < loans.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, loans.size());
+            List<Loan> batch = loans.subList(from, to);
+            List<LoanImportResult> batchResults = results.subList(from, to);
+
+            try {
+                List<Integer> periods = transactionTemplate.execute(status -> importBatch(batch, today));
+                for (int i = 0; i < batch.size(); i++) {
+                    LoanImportResult result = batchResults.get(i);
+                    result.setSuccess(true);
+                    result.setLoanId(batch.get(i).getId());
+                    result.setSchedulePeriods(periods.get(i));
+                }
+            } catch (RuntimeException e) {
+                logger.error("批量导入贷款失败，第{}~{}条已回滚", from + 1, to, e);
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).setId(null);
+                    batchResults.get(i).setMessage("批次写入失败: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 在当前事务内导入一批贷款，返回每笔贷款生成的计划期数
+     */
+    private List<Integer> importBatch(List<Loan> batch, LocalDate today) {
+        loanMapper.batchInsert(batch);
+
+        DataChangedEvent event = new DataChangedEvent(DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE);
+        List<Long> loanIds = new ArrayList<>(batch.size());
+        List<Integer> periods = new ArrayList<>(batch.size());
+        List<RepaymentSchedule> schedules = new ArrayList<>();
+
+        for (Loan loan : batch) {
+            List<RepaymentSchedule> loanSchedules = loanService.buildRepaymentSchedule(loan, today);
+            schedules.addAll(loanSchedules);
+            periods.add(loanSchedules.size());
+            loanIds.add(loan.getId());
+            event.loan(loan.getId());
+            for (RepaymentSchedule schedule : loanSchedules) {
+                event.month(schedule.getDueDate());
+            }
+        }
+
+        for (int from = 0; from < schedules.size(); from += SCHEDULE_INSERT_SIZE) {
+            scheduleMapper.batchInsert(schedules.subList(from, Math.min(from + SCHEDULE_INSERT_SIZE, schedules.size())));
+        }
+
+        debtTotalsService.applyChange(new DebtTotals(), debtTotalsService.contributionOf(loanIds));
+        eventPublisher.publishEvent(event);
+        return periods;
+    }
+
+    /**
+     * 校验单笔贷款，通过时返回 null（status 为空时默认为 active）
+     */
+    private static String validate(Loan loan) {
+        if (loan == null) {
+            return "空记录";
+        }
+        if (loan.getName() == null || loan.getName().isBlank()) {
+            return "贷款名称不能为空";
+        }
+        if (loan.getPrincipal() == null || loan.getPrincipal().signum() < 0) {
+            return "借款本金不能为空或为负数";
+        }
+        if (loan.getMonthlyAmount() == null || loan.getMonthlyAmount().signum() < 0) {
+            return "月还款额不能为空或为负数";
+        }
+        if (loan.getTotalPeriods() == null || loan.getTotalPeriods() <= 0) {
+            return "总期数必须大于0";
+        }
+        if (loan.getPaymentDay() == null || loan.getPaymentDay() < 1 || loan.getPaymentDay() > 31) {
+            return "还款日必须在1-31之间";
+        }
+        if (loan.getStartDate() == null) {
+            return "首期还款日期不能为空";
+        }
+        if (loan.getStatus() == null || loan.getStatus().isBlank()) {
+            loan.setStatus("active");
+        } else if (!"active".equals(loan.getStatus()) && !"completed".equals(loan.getStatus())) {
+            return "状态只能是 active 或 completed";
+        }
+        return null;
+    }
+
+    private static Loan toLoan(List<String> fields, Map<String, Integer> columns) {
+        Loan loan = new Loan();
+        loan.setName(field(fields, columns, "name"));
+        loan.setPlatform(field(fields, columns, "platform"));
+        loan.setPrincipal(decimal(field(fields, columns, "principal")));
+        loan.setMonthlyAmount(decimal(field(fields, columns, "monthlyamount")));
+        loan.setTotalPeriods(integer(field(fields, columns, "totalperiods")));
+        loan.setPaymentDay(integer(field(fields, columns, "paymentday")));
+        String startDate = field(fields, columns, "startdate");
+        loan.setStartDate(startDate != null ? LocalDate.parse(startDate) : null);
+        loan.setStatus(field(fields, columns, "status"));
+        loan.setNote(field(fields, columns, "note"));
+        return loan;
+    }
+
+    /**
+     * 取指定列的值，空白视为 null
+     */
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static BigDecimal decimal(String value) {
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    private static Integer integer(String value) {
+        return value != null ? Integer.valueOf(value) : null;
+    }
+
+    private static String normalizeColumn(String column) {
+        return column.trim().replace("_", "").toLowerCase();
+    }
+
+    /**
+     * 解析 CSV 文本为记录（支持双引号包裹及 "" 转义，引号内的换行属于字段内容）
+     * 记录带起始行号，只含空白的行跳过
+     */
+    private static List<CsvRecord> parseCsv(String csv) {
+        List<CsvRecord> records = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        boolean blank = true;
+        int line = 1;
+        int startLine = 1;
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                blank = false;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+                blank = false;
+            } else if (c == '\n' || (c == '\r' && i + 1 < csv.length() && csv.charAt(i + 1) == '\n')) {
+                if (c == '\r') {
+                    i++;
+                }
+                if (!blank) {
+                    fields.add(current.toString());
+                    records.add(new CsvRecord(startLine, fields));
+                }
+                fields = new ArrayList<>();
+                current.setLength(0);
+                blank = true;
+                line++;
+                startLine = line;
+            } else {
+                current.append(c);
+                if (!Character.isWhitespace(c)) {
+                    blank = false;
+                }
+            }
+        }
+        if (!blank) {
+            fields.add(current.toString());
+            records.add(new CsvRecord(startLine, fields));
+        }
+        return records;
+    }
+
+    /**
+     * 一条 CSV 记录及其起始行号
+     */
+    private static class CsvRecord {
+        final int line;
+        final List<String> fields;
+
+        CsvRecord(int line, List<String> fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    private static LoanImportResult newResult(int row, String name) {
+        LoanImportResult result = new LoanImportResult();
+        result.setRow(row);
+        result.setName(name);
+        return result;
+    }
+
+    private static Map<String, Object> report(List<LoanImportResult> results) {
+        int succeeded = 0;
+        for (LoanImportResult result : results) {
+            if (result.isSuccess()) {
+                succeeded++;
+            }
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("total", results.size());
+        report.put("succeeded", succeeded);
+        report.put("failed", results.size() - succeeded);
+        report.put("results", results);
+        return report;
+    }
+}
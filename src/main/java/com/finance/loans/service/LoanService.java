@@ -1,17 +1,30 @@
 package com.finance.loans.service;
 
+import com.finance.loans.cache.DashboardCache;
+import com.finance.loans.event.DataChangedEvent;
+import com.finance.loans.event.DataTable;
 import com.finance.loans.mapper.LoanMapper;
 import com.finance.loans.mapper.RepaymentScheduleMapper;
+import com.finance.loans.model.DebtTotals;
+import com.finance.loans.model.KeysetPage;
 import com.finance.loans.model.Loan;
+import com.finance.loans.model.LoanBreakdown;
+import com.finance.loans.model.LoanStatusSummary;
 import com.finance.loans.model.RepaymentSchedule;
+import com.finance.loans.model.ScheduleAggregate;
+import com.finance.loans.money.Money;
+import com.finance.loans.money.MoneyAccumulator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,6 +40,18 @@ public class LoanService {
     @Autowired
     private RepaymentScheduleMapper scheduleMapper;
     
+    @Autowired
+    private DashboardCache dashboardCache;
+    
+    @Autowired
+    private DebtTotalsService debtTotalsService;
+    
+    @Autowired
+    private ScheduleDiffEngine scheduleDiffEngine;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * 查询所有贷款
      */
@@ -35,10 +60,26 @@ public class LoanService {
     }
     
     /**
-     * 查询活跃贷款
+     * 分页查询贷款（按创建时间倒序），cursor 为空时返回第一页
+     */
+    public KeysetPage<Loan> getLoanPage(String cursor, int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = KeysetPage.decodeCursor(cursor, 2);
+            afterCreatedAt = LocalDateTime.parse(keys[0]);
+            afterId = Long.valueOf(keys[1]);
+        }
+        List<Loan> rows = loanMapper.findPage(afterCreatedAt, afterId, pageSize + 1);
+        return KeysetPage.of(rows, pageSize, loan -> KeysetPage.encodeCursor(loan.getCreatedAt(), loan.getId()));
+    }
+    
+    /**
+     * 查询活跃贷款（缓存）
      */
     public List<Loan> getActiveLoans() {
-        return loanMapper.findByStatus("active");
+        return dashboardCache.activeLoans(() -> loanMapper.findByStatus("active"));
     }
     
     /**
@@ -60,13 +101,18 @@ public class LoanService {
         // 插入贷款
         loanMapper.insert(loan);
         
+        DataChangedEvent event = new DataChangedEvent(DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE)
+                .loan(loan.getId());
+        
         // 自动生成还款计划
         if (loan.getTotalPeriods() != null && loan.getTotalPeriods() > 0 
             && loan.getMonthlyAmount() != null && loan.getPaymentDay() != null 
             && loan.getStartDate() != null) {
-            generateRepaymentSchedule(loan);
+            addMonths(event, generateRepaymentSchedule(loan));
         }
         
+        debtTotalsService.applyChange(new DebtTotals(), debtTotalsService.contributionOf(List.of(loan.getId())));
+        eventPublisher.publishEvent(event);
         return loan;
     }
     
@@ -79,6 +125,7 @@ public class LoanService {
         if (loan == null) {
             throw new RuntimeException("贷款不存在");
         }
+        DebtTotals before = debtTotalsService.contributionOf(List.of(id));
         
         // 检查关键字段是否变化（需要重新生成计划）
         boolean needRegeneratePlan = false;
@@ -102,12 +149,16 @@ public class LoanService {
         
         loanMapper.update(loan);
         
-        // 如果关键字段变化，重新生成还款计划
+        DataChangedEvent event = new DataChangedEvent(DataTable.LOAN).loan(loan.getId());
+        
+        // 如果关键字段变化，按期数对比后只写入变化的计划
         if (needRegeneratePlan) {
-            scheduleMapper.deleteByLoanId(loan.getId());
-            generateRepaymentSchedule(loan);
+            event = new DataChangedEvent(DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE).loan(loan.getId());
+            applyScheduleDiff(event, loan);
         }
         
+        debtTotalsService.applyChange(before, debtTotalsService.contributionOf(List.of(id)));
+        eventPublisher.publishEvent(event);
         return loan;
     }
     
@@ -116,8 +167,16 @@ public class LoanService {
      */
     @Transactional
     public void deleteLoan(Long id) {
+        DataChangedEvent event = new DataChangedEvent(DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE,
+                DataTable.PAYMENT_RECORD).loan(id);
+        addMonths(event, scheduleMapper.findByLoanId(id));
+        DebtTotals before = debtTotalsService.contributionOf(List.of(id));
+        
         scheduleMapper.deleteByLoanId(id);
         loanMapper.deleteById(id);
+        
+        debtTotalsService.applyChange(before, new DebtTotals());
+        eventPublisher.publishEvent(event);
     }
     
     /**
@@ -129,9 +188,14 @@ public class LoanService {
         if (loan == null) {
             throw new RuntimeException("贷款不存在");
         }
+        DebtTotals before = debtTotalsService.contributionOf(List.of(id));
+        
+        // 获取所有未还的计划（待还和逾期）
+        List<RepaymentSchedule> pendingSchedules = new ArrayList<>(scheduleMapper.findByLoanIdAndStatus(id, "pending"));
+        pendingSchedules.addAll(scheduleMapper.findByLoanIdAndStatus(id, "overdue"));
         
-        // 获取所有未还的计划
-        List<RepaymentSchedule> pendingSchedules = scheduleMapper.findByLoanIdAndStatus(id, "pending");
+        DataChangedEvent event = new DataChangedEvent(DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE).loan(id);
+        addMonths(event, pendingSchedules);
         
         // 标记所有未还的为已还
         if (!pendingSchedules.isEmpty()) {
@@ -145,13 +209,57 @@ public class LoanService {
         // 更新贷款状态为已结清
         loan.setStatus("completed");
         loanMapper.update(loan);
+        
+        debtTotalsService.applyChange(before, debtTotalsService.contributionOf(List.of(id)));
+        eventPublisher.publishEvent(event);
+    }
+    
+    /**
+     * 生成还款计划，返回生成的计划
+     */
+    private List<RepaymentSchedule> generateRepaymentSchedule(Loan loan) {
+        List<RepaymentSchedule> schedules = buildRepaymentSchedule(loan, LocalDate.now());
+        
+        // 批量插入
+        if (!schedules.isEmpty()) {
+            scheduleMapper.batchInsert(schedules);
+        }
+        return schedules;
     }
     
     /**
-     * 生成还款计划
+     * 计算目标计划并与现有计划对比，批量执行删除、更新、插入（已还期数不动）
+     * 先锁定贷款的全部计划再对比，对比期间还款和自动结算无法修改这些行；
+     * 删除、更新语句仍校验未还状态和版本，受影响行数不符时整个事务回滚
      */
-    private void generateRepaymentSchedule(Loan loan) {
-        List<RepaymentSchedule> schedules = new ArrayList<>();
+    private void applyScheduleDiff(DataChangedEvent event, Loan loan) {
+        List<RepaymentSchedule> target = buildRepaymentSchedule(loan, LocalDate.now());
+        ScheduleDiffEngine.Diff diff = scheduleDiffEngine.diff(scheduleMapper.lockByLoanId(loan.getId()), target);
+        
+        if (!diff.getDeletes().isEmpty()) {
+            if (scheduleMapper.deleteUnpaidByIds(diff.getDeleteIds()) != diff.getDeletes().size()) {
+                throw new IllegalStateException("还款计划已被修改，请刷新后重试");
+            }
+            addMonths(event, diff.getDeletes());
+        }
+        if (!diff.getUpdates().isEmpty()) {
+            if (scheduleMapper.batchUpdate(diff.getUpdates()) != diff.getUpdates().size()) {
+                throw new IllegalStateException("还款计划已被修改，请刷新后重试");
+            }
+            addMonths(event, diff.getPrevious());
+            addMonths(event, diff.getUpdates());
+        }
+        if (!diff.getInserts().isEmpty()) {
+            scheduleMapper.batchInsert(diff.getInserts());
+            addMonths(event, diff.getInserts());
+        }
+    }
+    
+    /**
+     * 计算贷款的还款计划（不写库），应还日期早于 today 的期数标记为已还
+     */
+    public List<RepaymentSchedule> buildRepaymentSchedule(Loan loan, LocalDate today) {
+        List<RepaymentSchedule> schedules = new ArrayList<>(loan.getTotalPeriods());
         LocalDate startDate = loan.getStartDate();
         
         for (int period = 1; period <= loan.getTotalPeriods(); period++) {
@@ -168,7 +276,7 @@ public class LoanService {
             schedule.setAmount(loan.getMonthlyAmount());
             
             // 判断状态
-            if (dueDate.isBefore(LocalDate.now())) {
+            if (dueDate.isBefore(today)) {
                 schedule.setStatus("paid");
                 schedule.setPaidDate(dueDate);
                 schedule.setPaidAmount(loan.getMonthlyAmount());
@@ -179,45 +287,102 @@ public class LoanService {
             schedules.add(schedule);
         }
         
-        // 批量插入
-        if (!schedules.isEmpty()) {
-            scheduleMapper.batchInsert(schedules);
+        return schedules;
+    }
+    
+    /**
+     * 把还款计划所在月份加入变更事件
+     */
+    private static void addMonths(DataChangedEvent event, List<RepaymentSchedule> schedules) {
+        for (RepaymentSchedule schedule : schedules) {
+            event.month(schedule.getDueDate());
         }
     }
     
     /**
-     * 获取贷款统计
+     * 获取贷款统计（缓存）
      */
     public Map<String, Object> getLoanSummary() {
+        return dashboardCache.summary(this::computeLoanSummary);
+    }
+    
+    /**
+     * 计算贷款统计
+     * 固定两条聚合 SQL，查询次数与贷款数量无关
+     */
+    private Map<String, Object> computeLoanSummary() {
         Map<String, Object> summary = new HashMap<>();
         
-        List<Loan> activeLoans = getActiveLoans();
-        
-        BigDecimal totalPrincipal = BigDecimal.ZERO;
-        BigDecimal monthlyPayment = BigDecimal.ZERO;
-        int activeCount = activeLoans.size();
-        int completedCount = loanMapper.countByStatus("completed");
+        Money totalPrincipal = Money.ZERO;
+        Money monthlyPayment = Money.ZERO;
+        int activeCount = 0;
+        int completedCount = 0;
         
-        for (Loan loan : activeLoans) {
-            totalPrincipal = totalPrincipal.add(loan.getPrincipal() != null ? loan.getPrincipal() : BigDecimal.ZERO);
-            monthlyPayment = monthlyPayment.add(loan.getMonthlyAmount() != null ? loan.getMonthlyAmount() : BigDecimal.ZERO);
+        for (LoanStatusSummary row : loanMapper.summarizeByStatus()) {
+            if ("active".equals(row.getStatus())) {
+                activeCount = row.getLoanCount();
+                totalPrincipal = row.getTotalPrincipal();
+                monthlyPayment = row.getTotalMonthlyAmount();
+            } else if ("completed".equals(row.getStatus())) {
+                completedCount = row.getLoanCount();
+            }
         }
         
-        // 计算剩余负债
-        BigDecimal remainingDebt = BigDecimal.ZERO;
-        for (Loan loan : activeLoans) {
-            List<RepaymentSchedule> schedules = scheduleMapper.findByLoanIdAndStatus(loan.getId(), "pending");
-            for (RepaymentSchedule schedule : schedules) {
-                remainingDebt = remainingDebt.add(schedule.getAmount());
+        // 计算剩余负债（活跃贷款的待还与逾期金额）
+        MoneyAccumulator remainingDebt = new MoneyAccumulator();
+        for (ScheduleAggregate row : scheduleMapper.aggregateByLoanAndStatus("active")) {
+            if (!"paid".equals(row.getStatus())) {
+                remainingDebt.add(row.getTotalAmount());
             }
         }
         
-        summary.put("totalPrincipal", totalPrincipal);
-        summary.put("remainingDebt", remainingDebt);
-        summary.put("monthlyPayment", monthlyPayment);
+        summary.put("totalPrincipal", totalPrincipal.toBigDecimal());
+        summary.put("remainingDebt", remainingDebt.toBigDecimal());
+        summary.put("monthlyPayment", monthlyPayment.toBigDecimal());
         summary.put("activeLoans", activeCount);
         summary.put("completedLoans", completedCount);
         
         return summary;
     }
+    
+    /**
+     * 获取每笔活跃贷款的统计明细
+     */
+    public List<LoanBreakdown> getLoanBreakdown() {
+        Map<Long, LoanBreakdown> breakdowns = new LinkedHashMap<>();
+        for (Loan loan : getActiveLoans()) {
+            LoanBreakdown breakdown = new LoanBreakdown();
+            breakdown.setLoanId(loan.getId());
+            breakdown.setName(loan.getName());
+            breakdown.setPlatform(loan.getPlatform());
+            breakdown.setPrincipal(loan.getPrincipal());
+            breakdown.setMonthlyAmount(loan.getMonthlyAmount());
+            breakdowns.put(loan.getId(), breakdown);
+        }
+        
+        // 剩余负债按贷款累加（每笔贷款一个累加器，逐行累加不产生中间对象）
+        Map<Long, MoneyAccumulator> remainingDebts = new HashMap<>();
+        for (ScheduleAggregate row : scheduleMapper.aggregateByLoanAndStatus("active")) {
+            LoanBreakdown breakdown = breakdowns.get(row.getLoanId());
+            if (breakdown == null) {
+                continue;
+            }
+            if ("paid".equals(row.getStatus())) {
+                breakdown.setPaidPeriods(row.getPeriodCount());
+                breakdown.setPaidAmount(row.getTotalPaidAmount().toBigDecimal());
+            } else {
+                if ("overdue".equals(row.getStatus())) {
+                    breakdown.setOverduePeriods(row.getPeriodCount());
+                } else {
+                    breakdown.setPendingPeriods(breakdown.getPendingPeriods() + row.getPeriodCount());
+                }
+                remainingDebts.computeIfAbsent(row.getLoanId(), id -> new MoneyAccumulator()).add(row.getTotalAmount());
+            }
+        }
+        for (Map.Entry<Long, MoneyAccumulator> entry : remainingDebts.entrySet()) {
+            breakdowns.get(entry.getKey()).setRemainingDebt(entry.getValue().toBigDecimal());
+        }
+        
+        return new ArrayList<>(breakdowns.values());
+    }
 }
@@ -0,0 +1,83 @@
+package com.finance.loans.service;
+
+import com.finance.loans.event.DataChangedEvent;
+import com.finance.loans.event.DataTable;
+import com.finance.loans.mapper.LoanStatisticsMapper;
+import com.finance.loans.model.Loan;
+import com.finance.loans.model.LoanStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 贷款统计服务
+ *
+ * loan_statistics 每笔贷款一行（已还/待还/逾期期数、剩余金额、下次应还日期）。
+ * 写操作发布的 {@link DataChangedEvent} 在事务提交前处理，按事件中的贷款重新聚合对应行，
+ * 统计与还款计划在同一事务内提交；列表接口按主键批量读取，不再做全表 GROUP BY。
+ */
+@Service
+public class LoanStatisticsService {
+
+    @Autowired
+    private LoanStatisticsMapper statisticsMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 事务提交前刷新受影响贷款的统计（无事务时立即执行）
+     * 未指明贷款时全量刷新
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        if (!event.affects(DataTable.LOAN) && !event.affects(DataTable.REPAYMENT_SCHEDULE)) {
+            return;
+        }
+        if (event.getLoanIds().isEmpty()) {
+            statisticsMapper.refreshAll();
+        } else {
+            statisticsMapper.refreshByLoanIds(event.getLoanIds());
+        }
+    }
+
+    /**
+     * 全量重建统计，返回重建的贷款数
+     * 提交后带统计的贷款列表版本随之变化
+     */
+    @Transactional
+    public int rebuild() {
+        statisticsMapper.deleteAll();
+        int count = statisticsMapper.refreshAll();
+        eventPublisher.publishEvent(new DataChangedEvent(DataTable.LOAN_STATISTICS));
+        return count;
+    }
+
+    /**
+     * 为一页贷款填充统计（一次主键批量查询）
+     */
+    public void attach(List<Loan> loans) {
+        if (loans.isEmpty()) {
+            return;
+        }
+        List<Long> loanIds = new ArrayList<>();
+        for (Loan loan : loans) {
+            loanIds.add(loan.getId());
+        }
+        Map<Long, LoanStatistics> byLoan = new HashMap<>();
+        for (LoanStatistics statistics : statisticsMapper.findByLoanIds(loanIds)) {
+            byLoan.put(statistics.getLoanId(), statistics);
+        }
+        for (Loan loan : loans) {
+            loan.setStatistics(byLoan.get(loan.getId()));
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.finance.loans.service;
 
 import com.finance.loans.mapper.PaymentRecordMapper;
+import com.finance.loans.model.KeysetPage;
 import com.finance.loans.model.PaymentRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 /**
@@ -24,18 +26,36 @@ public class PaymentRecordService {
         return recordMapper.findByLoanId(loanId);
     }
     
+    /**
+     * 分页获取贷款的还款记录（按还款日期倒序），cursor 为空时返回第一页
+     */
+    public KeysetPage<PaymentRecord> getLoanRecordPage(Long loanId, String cursor, int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        LocalDate afterDate = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = KeysetPage.decodeCursor(cursor, 2);
+            afterDate = LocalDate.parse(keys[0]);
+            afterId = Long.valueOf(keys[1]);
+        }
+        List<PaymentRecord> rows = recordMapper.findPageByLoanId(loanId, afterDate, afterId, pageSize + 1);
+        return KeysetPage.of(rows, pageSize,
+                record -> KeysetPage.encodeCursor(record.getPaymentDate(), record.getId()));
+    }
+    
     /**
      * 获取本月还款记录
      */
     public List<PaymentRecord> getCurrentMonthRecords() {
         LocalDate now = LocalDate.now();
-        return recordMapper.findByMonth(now.getYear(), now.getMonthValue());
+        return getMonthRecords(now.getYear(), now.getMonthValue());
     }
     
     /**
      * 获取指定月份的还款记录
      */
     public List<PaymentRecord> getMonthRecords(int year, int month) {
-        return recordMapper.findByMonth(year, month);
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return recordMapper.findByMonth(yearMonth.atDay(1), yearMonth.plusMonths(1).atDay(1));
     }
 }
@@ -1,16 +1,35 @@
 package com.finance.loans.service;
 
+import com.finance.loans.cache.DashboardCache;
+import com.finance.loans.cache.ScheduleIndex;
+import com.finance.loans.event.DataChangedEvent;
+import com.finance.loans.event.DataTable;
 import com.finance.loans.mapper.RepaymentScheduleMapper;
 import com.finance.loans.mapper.PaymentRecordMapper;
+import com.finance.loans.model.CalendarDay;
+import com.finance.loans.model.DebtTotals;
+import com.finance.loans.model.KeysetPage;
+import com.finance.loans.model.LoanScheduleColumns;
+import com.finance.loans.model.LoanScheduleRow;
 import com.finance.loans.model.RepaymentSchedule;
 import com.finance.loans.model.PaymentRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 还款计划服务
@@ -24,54 +43,188 @@ public class RepaymentScheduleService {
     @Autowired
     private PaymentRecordMapper recordMapper;
     
+    @Autowired
+    private DashboardCache dashboardCache;
+    
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+    
+    @Autowired
+    private DebtTotalsService debtTotalsService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    /** 自动结算每批处理的计划数 */
+    @Value("${loans.settlement.batch-size:200}")
+    private int settlementBatchSize;
+    
+    /** 逾期标记每批处理的计划数 */
+    @Value("${loans.overdue.batch-size:500}")
+    private int overdueBatchSize;
+    
+    /** 逾期扫描高水位：应还日期早于它的待还计划都已标记为逾期（重启后为空，首次扫描全部历史） */
+    private volatile LocalDate overdueWatermark;
+    
     /**
      * 获取贷款的还款计划
      */
     public List<RepaymentSchedule> getLoanSchedules(Long loanId) {
-        return scheduleMapper.findByLoanId(loanId);
+        List<RepaymentSchedule> indexed = scheduleIndex.findByLoanId(loanId);
+        if (indexed != null) {
+            return indexed;
+        }
+        return dashboardCache.loanSchedules(loanId, () -> scheduleMapper.findByLoanId(loanId));
+    }
+    
+    /**
+     * 分页获取贷款的还款计划（按期数升序），cursor 为空时返回第一页
+     */
+    public KeysetPage<RepaymentSchedule> getLoanSchedulePage(Long loanId, String cursor, int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        Integer afterPeriod = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            afterPeriod = Integer.valueOf(KeysetPage.decodeCursor(cursor, 1)[0]);
+        }
+        List<RepaymentSchedule> rows = scheduleMapper.findPageByLoanId(loanId, afterPeriod, pageSize + 1);
+        return KeysetPage.of(rows, pageSize, schedule -> KeysetPage.encodeCursor(schedule.getPeriod()));
+    }
+    
+    /**
+     * 一次查询获取多笔贷款的还款计划，按贷款分组为列式结构
+     * 所有条件均可选；fromDate、toDate 为应还日期的闭区间
+     */
+    public List<LoanScheduleColumns> getAllSchedules(String loanStatus, List<String> statuses,
+                                                     LocalDate fromDate, LocalDate toDate) {
+        LocalDate beforeDate = toDate != null ? toDate.plusDays(1) : null;
+        List<LoanScheduleRow> rows = scheduleMapper.findWithLoan(loanStatus, statuses, fromDate, beforeDate);
+        
+        Map<Long, LoanScheduleColumns> byLoan = new LinkedHashMap<>();
+        for (LoanScheduleRow row : rows) {
+            LoanScheduleColumns columns = byLoan.get(row.getLoanId());
+            if (columns == null) {
+                columns = new LoanScheduleColumns();
+                columns.setLoanId(row.getLoanId());
+                columns.setName(row.getLoanName());
+                columns.setPlatform(row.getPlatform());
+                columns.setMonthlyAmount(row.getMonthlyAmount());
+                columns.setTotalPeriods(row.getTotalPeriods());
+                columns.setStatus(row.getLoanStatus());
+                byLoan.put(row.getLoanId(), columns);
+            }
+            columns.getIds().add(row.getScheduleId());
+            columns.getPeriods().add(row.getPeriod());
+            columns.getDueDates().add(row.getDueDate());
+            columns.getAmounts().add(row.getAmount());
+            columns.getStatuses().add(row.getStatus());
+        }
+        return new ArrayList<>(byLoan.values());
+    }
+    
+    /**
+     * 获取 [fromMonth, toMonth] 内每天的还款汇总（一条分组 SQL）
+     */
+    public List<CalendarDay> getCalendarDays(YearMonth fromMonth, YearMonth toMonth) {
+        List<CalendarDay> indexed = scheduleIndex.sumByDay(fromMonth.atDay(1), toMonth.plusMonths(1).atDay(1));
+        if (indexed != null) {
+            return indexed;
+        }
+        return scheduleMapper.sumByDay(fromMonth.atDay(1), toMonth.plusMonths(1).atDay(1));
+    }
+    
+    /**
+     * 获取日期区间（含首尾）内的还款计划明细，带贷款名称和平台
+     */
+    public List<LoanScheduleRow> getCalendarRows(LocalDate fromDate, LocalDate toDate) {
+        return scheduleMapper.findWithLoan(null, null, fromDate, toDate.plusDays(1));
     }
     
     /**
      * 获取待还计划
      */
     public List<RepaymentSchedule> getPendingSchedules(Long loanId) {
+        List<RepaymentSchedule> indexed = scheduleIndex.findByLoanIdAndStatus(loanId, "pending");
+        if (indexed != null) {
+            return indexed;
+        }
         return scheduleMapper.findByLoanIdAndStatus(loanId, "pending");
     }
     
+    /**
+     * 获取今天应还的待还计划
+     */
+    public List<RepaymentSchedule> getTodayPendingSchedules() {
+        LocalDate today = LocalDate.now();
+        List<RepaymentSchedule> indexed = scheduleIndex.findDuePending(today);
+        if (indexed != null) {
+            return indexed;
+        }
+        return scheduleMapper.findTodayPending(today);
+    }
+    
     /**
      * 获取本月还款计划
      */
     public List<RepaymentSchedule> getCurrentMonthSchedules() {
         LocalDate now = LocalDate.now();
-        return scheduleMapper.findByMonth(now.getYear(), now.getMonthValue());
+        return getMonthSchedules(now.getYear(), now.getMonthValue());
     }
     
     /**
      * 获取指定月份的还款计划
      */
     public List<RepaymentSchedule> getMonthSchedules(int year, int month) {
-        return scheduleMapper.findByMonth(year, month);
+        YearMonth yearMonth = YearMonth.of(year, month);
+        List<RepaymentSchedule> indexed = scheduleIndex.findByDueDate(yearMonth.atDay(1), yearMonth.plusMonths(1).atDay(1));
+        if (indexed != null) {
+            return indexed;
+        }
+        return dashboardCache.monthSchedules(yearMonth,
+                () -> scheduleMapper.findByMonth(yearMonth.atDay(1), yearMonth.plusMonths(1).atDay(1)));
     }
     
     /**
      * 记录还款
+     * 先执行一条条件 UPDATE（只更新未还、且版本与 expectedVersion 一致的计划），不预先读取计划：
+     * 并发提交时只有一个事务能更新成功，其余按受影响行数为 0 直接失败，不重试也不额外加锁；
+     * 更新成功后再读取所属贷款和应还日期，累计值按这一期的前后贡献调整；
+     * 更新失败时才用当前读重新读取计划，判断是不存在、已还还是版本冲突。
+     * idempotencyKey 不为空时同一键只记录一次，重复提交返回第一次的还款记录
      */
     @Transactional
-    public void recordPayment(Long scheduleId, BigDecimal amount, LocalDate paymentDate) {
-        RepaymentSchedule schedule = scheduleMapper.findById(scheduleId);
-        if (schedule == null) {
-            throw new RuntimeException("还款计划不存在");
+    public PaymentRecord recordPayment(Long scheduleId, BigDecimal amount, LocalDate paymentDate,
+                                       String idempotencyKey, Integer expectedVersion) {
+        if (idempotencyKey != null) {
+            PaymentRecord existing = recordMapper.findByIdempotencyKey(idempotencyKey);
+            if (existing != null) {
+                return replayedPayment(existing, scheduleId);
+            }
         }
         
-        if ("paid".equals(schedule.getStatus())) {
-            throw new RuntimeException("该期已还款");
+        // 条件更新计划状态
+        if (scheduleMapper.markPaid(scheduleId, paymentDate, amount, expectedVersion) == 0) {
+            if (idempotencyKey != null) {
+                // 同一键的并发提交：另一个事务已提交，读取它写入的记录
+                PaymentRecord existing = recordMapper.findCommittedByIdempotencyKey(idempotencyKey);
+                if (existing != null) {
+                    return replayedPayment(existing, scheduleId);
+                }
+            }
+            RepaymentSchedule current = scheduleMapper.findCommittedById(scheduleId);
+            if (current == null) {
+                throw new RuntimeException("还款计划不存在");
+            }
+            if ("paid".equals(current.getStatus())) {
+                throw new RuntimeException("该期已还款");
+            }
+            throw new RuntimeException("还款计划已被修改，请刷新后重试");
         }
         
-        // 更新计划状态
-        schedule.setStatus("paid");
-        schedule.setPaidDate(paymentDate);
-        schedule.setPaidAmount(amount);
-        scheduleMapper.update(schedule);
+        // 本事务刚更新的行，读取到的是更新后的值
+        LoanScheduleRow schedule = scheduleMapper.findRowById(scheduleId);
         
         // 创建还款记录
         PaymentRecord record = new PaymentRecord();
@@ -80,39 +233,137 @@ public class RepaymentScheduleService {
         record.setAmount(amount);
         record.setPaymentDate(paymentDate);
         record.setPaymentType("normal");
-        recordMapper.insert(record);
+        record.setIdempotencyKey(idempotencyKey);
+        try {
+            recordMapper.insert(record);
+        } catch (DuplicateKeyException e) {
+            // 同一键并发用于不同计划，唯一索引兜底，整个事务回滚
+            throw new IllegalArgumentException("幂等键已用于其他还款计划", e);
+        }
+        
+        // 更新前是待还或逾期（两者贡献相同），更新后为已还
+        DebtTotals before = debtTotalsService.contributionOf(schedule.getLoanStatus(), "pending",
+                schedule.getAmount(), null);
+        DebtTotals after = debtTotalsService.contributionOf(schedule.getLoanStatus(), "paid",
+                schedule.getAmount(), schedule.getPaidAmount());
+        debtTotalsService.applyChange(before, after);
+        eventPublisher.publishEvent(new DataChangedEvent(DataTable.REPAYMENT_SCHEDULE, DataTable.PAYMENT_RECORD)
+                .loan(schedule.getLoanId())
+                .month(schedule.getDueDate()));
+        return record;
+    }
+    
+    /**
+     * 幂等键已存在时返回原记录，键被用于其他计划时拒绝
+     */
+    private static PaymentRecord replayedPayment(PaymentRecord existing, Long scheduleId) {
+        if (!scheduleId.equals(existing.getScheduleId())) {
+            throw new IllegalArgumentException("幂等键已用于其他还款计划");
+        }
+        return existing;
     }
     
     /**
      * 标记当天应还款项为已还
+     * 按 batch-size 分批处理，每批在独立事务中锁定、生成还款记录、更新状态后提交，
+     * 避免应还集中的日子长时间持有大量行锁
      * 返回标记的数量
      */
-    @Transactional
     public int markTodayAsPaid() {
         LocalDate today = LocalDate.now();
         int count = 0;
+        Long afterId = 0L;
         
-        // 直接查询今天应还且状态为pending的计划
-        List<RepaymentSchedule> todaySchedules = scheduleMapper.findTodayPending(today);
-        
-        for (RepaymentSchedule schedule : todaySchedules) {
-            schedule.setStatus("paid");
-            schedule.setPaidDate(today);
-            schedule.setPaidAmount(schedule.getAmount());
-            scheduleMapper.update(schedule);
-            
-            // 创建还款记录
-            PaymentRecord record = new PaymentRecord();
-            record.setLoanId(schedule.getLoanId());
-            record.setScheduleId(schedule.getId());
-            record.setAmount(schedule.getAmount());
-            record.setPaymentDate(today);
-            record.setPaymentType("auto");
-            recordMapper.insert(record);
-            
-            count++;
-        }
+        List<RepaymentSchedule> batch;
+        do {
+            Long cursor = afterId;
+            batch = transactionTemplate.execute(status -> settleDueBatch(today, cursor));
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            count += batch.size();
+            afterId = batch.get(batch.size() - 1).getId();
+        } while (batch.size() >= settlementBatchSize);
         
         return count;
     }
+    
+    /**
+     * 把应还日期早于今天的待还计划标记为逾期
+     * 从高水位日期开始按 (status, due_date) 索引区间分批锁定、更新，每批在独立事务中提交，
+     * 全部完成后把高水位推进到今天，下次只扫描新到期的日期
+     * 返回标记的数量
+     */
+    public synchronized int markOverdue() {
+        LocalDate today = LocalDate.now();
+        LocalDate fromDate = overdueWatermark;
+        int count = 0;
+        
+        List<RepaymentSchedule> batch;
+        do {
+            LocalDate cursor = fromDate;
+            batch = transactionTemplate.execute(status -> markOverdueBatch(cursor, today));
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            count += batch.size();
+            fromDate = batch.get(batch.size() - 1).getDueDate();
+        } while (batch.size() >= overdueBatchSize);
+        
+        overdueWatermark = today;
+        return count;
+    }
+    
+    /**
+     * 标记一批逾期计划（在调用方事务内执行）
+     * 待还与逾期都计入剩余负债，累计值不变，只需发布变更事件
+     */
+    private List<RepaymentSchedule> markOverdueBatch(LocalDate fromDate, LocalDate beforeDate) {
+        List<RepaymentSchedule> batch = scheduleMapper.lockPendingDueBefore(fromDate, beforeDate, overdueBatchSize);
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        
+        List<Long> ids = new ArrayList<>();
+        DataChangedEvent event = new DataChangedEvent(DataTable.REPAYMENT_SCHEDULE);
+        for (RepaymentSchedule schedule : batch) {
+            ids.add(schedule.getId());
+            event.loan(schedule.getLoanId()).month(schedule.getDueDate());
+        }
+        scheduleMapper.markOverdue(ids);
+        eventPublisher.publishEvent(event);
+        
+        return batch;
+    }
+    
+    /**
+     * 结算一批到期计划（在调用方事务内执行）
+     */
+    private List<RepaymentSchedule> settleDueBatch(LocalDate dueDate, Long afterId) {
+        List<RepaymentSchedule> batch = scheduleMapper.lockDuePendingBatch(dueDate, afterId, settlementBatchSize);
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        
+        List<Long> ids = new ArrayList<>();
+        Set<Long> loanIds = new LinkedHashSet<>();
+        for (RepaymentSchedule schedule : batch) {
+            ids.add(schedule.getId());
+            loanIds.add(schedule.getLoanId());
+        }
+        DebtTotals before = debtTotalsService.contributionOf(loanIds);
+        
+        // 先按计划生成还款记录，再批量更新计划状态（实还金额取应还金额）
+        recordMapper.insertFromSchedules(ids, dueDate, "auto");
+        scheduleMapper.batchUpdateStatus(ids, "paid", dueDate);
+        
+        debtTotalsService.applyChange(before, debtTotalsService.contributionOf(loanIds));
+        
+        DataChangedEvent event = new DataChangedEvent(DataTable.REPAYMENT_SCHEDULE, DataTable.PAYMENT_RECORD)
+                .month(dueDate);
+        loanIds.forEach(event::loan);
+        eventPublisher.publishEvent(event);
+        
+        return batch;
+    }
 }
@@ -0,0 +1,125 @@
+package com.finance.loans.service;
+
+import com.finance.loans.model.RepaymentSchedule;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 还款计划差异引擎
+ *
+ * 按期数对比现有计划与目标计划（内存中重新计算的结果），得出最少的插入、更新、删除：
+ * - 已还的期数保持原样（应还日期、金额、实还信息都不动，payment_record.schedule_id 的关联随之保留）
+ * - 未还的期数只在应还日期或金额变化时更新，应还日期不变时保留原状态（逾期仍为逾期）；
+ *   应还日期变化时按目标计划重新判断状态
+ * - 目标计划多出的期数插入，现有计划多出的未还期数删除；已还期数超出新的总期数时拒绝修改
+ */
+@Component
+public class ScheduleDiffEngine {
+
+    /**
+     * 计算把 existing 变为 target 所需的变更，existing 中的行须带ID和版本
+     * 更新行携带读取时的版本，写入时据此校验
+     */
+    public Diff diff(List<RepaymentSchedule> existing, List<RepaymentSchedule> target) {
+        Map<Integer, RepaymentSchedule> existingByPeriod = new HashMap<>();
+        for (RepaymentSchedule schedule : existing) {
+            existingByPeriod.put(schedule.getPeriod(), schedule);
+        }
+
+        Diff diff = new Diff();
+        for (RepaymentSchedule wanted : target) {
+            RepaymentSchedule current = existingByPeriod.remove(wanted.getPeriod());
+            if (current == null) {
+                diff.inserts.add(wanted);
+            } else if (!"paid".equals(current.getStatus()) && changed(current, wanted)) {
+                diff.updates.add(merge(current, wanted));
+                diff.previous.add(current);
+            }
+        }
+        for (RepaymentSchedule extra : existingByPeriod.values()) {
+            if ("paid".equals(extra.getStatus())) {
+                throw new RuntimeException("第 " + extra.getPeriod() + " 期已还，总期数不能少于 " + extra.getPeriod());
+            }
+            diff.deletes.add(extra);
+        }
+        return diff;
+    }
+
+    private static boolean changed(RepaymentSchedule current, RepaymentSchedule wanted) {
+        return !current.getDueDate().equals(wanted.getDueDate())
+                || current.getAmount() == null
+                || current.getAmount().compareTo(wanted.getAmount()) != 0;
+    }
+
+    /**
+     * 未还期数的更新结果：应还日期和金额取目标值，应还日期不变时保留原状态
+     */
+    private static RepaymentSchedule merge(RepaymentSchedule current, RepaymentSchedule wanted) {
+        RepaymentSchedule updated = new RepaymentSchedule();
+        updated.setId(current.getId());
+        updated.setLoanId(current.getLoanId());
+        updated.setPeriod(current.getPeriod());
+        updated.setDueDate(wanted.getDueDate());
+        updated.setAmount(wanted.getAmount());
+        updated.setVersion(current.getVersion());
+        if (Objects.equals(current.getDueDate(), wanted.getDueDate())) {
+            updated.setStatus(current.getStatus());
+        } else {
+            updated.setStatus(wanted.getStatus());
+            updated.setPaidDate(wanted.getPaidDate());
+            updated.setPaidAmount(wanted.getPaidAmount());
+        }
+        return updated;
+    }
+
+    /**
+     * 计划差异
+     */
+    public static class Diff {
+
+        private final List<RepaymentSchedule> inserts = new ArrayList<>();
+
+        private final List<RepaymentSchedule> updates = new ArrayList<>();
+
+        /** 被更新行的原值（与 updates 一一对应） */
+        private final List<RepaymentSchedule> previous = new ArrayList<>();
+
+        private final List<RepaymentSchedule> deletes = new ArrayList<>();
+
+        public List<RepaymentSchedule> getInserts() {
+            return inserts;
+        }
+
+        public List<RepaymentSchedule> getUpdates() {
+            return updates;
+        }
+
+        public List<RepaymentSchedule> getPrevious() {
+            return previous;
+        }
+
+        public List<RepaymentSchedule> getDeletes() {
+            return deletes;
+        }
+
+        public boolean isEmpty() {
+            return inserts.isEmpty() && updates.isEmpty() && deletes.isEmpty();
+        }
+
+        /**
+         * 删除行的ID
+         */
+        public List<Long> getDeleteIds() {
+            List<Long> ids = new ArrayList<>(deletes.size());
+            for (RepaymentSchedule schedule : deletes) {
+                ids.add(schedule.getId());
+            }
+            return ids;
+        }
+    }
+}
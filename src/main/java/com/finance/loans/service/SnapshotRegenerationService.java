@@ -0,0 +1,423 @@
+package com.finance.loans.service;
+
+import com.finance.loans.cache.TableVersions;
+import com.finance.loans.config.SchedulingConfig;
+import com.finance.loans.event.DataChangedEvent;
+import com.finance.loans.event.DataTable;
+import com.finance.loans.mapper.DebtSnapshotMapper;
+import com.finance.loans.mapper.LoanMapper;
+import com.finance.loans.mapper.PaymentRecordMapper;
+import com.finance.loans.mapper.RepaymentScheduleMapper;
+import com.finance.loans.model.DebtSnapshot;
+import com.finance.loans.model.Loan;
+import com.finance.loans.model.RegenerationProgress;
+import com.finance.loans.model.RepaymentSchedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 快照分段重新生成
+ *
+ * 把最早贷款日期到今天的区间切成固定天数的分段，在有界线程池上并行重放，
+ * 每段在自己的事务里先删除该段旧快照再写入，不再用一个大事务锁住整张快照表。
+ * 各段共用一条事件时间线，分段起点之前的事件在重放时先行应用。
+ *
+ * 任务在内存中登记，可查询进度、取消；取消或失败后可以续跑未完成的分段。
+ * 接口只登记任务，加载数据、切分分段都在执行器上完成。
+ * 续跑时重新加载时间线并把区间延长到当天；任务开始后贷款、还款计划或还款记录有过写入时拒绝续跑，
+ * 已完成的分段是按旧数据生成的，只能重新发起。
+ */
+@Service
+public class SnapshotRegenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotRegenerationService.class);
+
+    /** 批量插入快照时每条 SQL 的最大行数 */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private static final String STALE_DATA_MESSAGE = "任务开始后贷款或还款数据已变更，已完成的分段已过时，请重新发起";
+
+    /** 保留的已结束任务数 */
+    private static final int MAX_FINISHED_JOBS = 10;
+
+    public static final String RUNNING = "running";
+
+    public static final String CANCELLING = "cancelling";
+
+    public static final String CANCELLED = "cancelled";
+
+    public static final String FAILED = "failed";
+
+    public static final String COMPLETED = "completed";
+
+    @Autowired
+    private DebtSnapshotMapper snapshotMapper;
+
+    @Autowired
+    private LoanMapper loanMapper;
+
+    @Autowired
+    private RepaymentScheduleMapper scheduleMapper;
+
+    @Autowired
+    private PaymentRecordMapper recordMapper;
+
+    @Autowired
+    private SnapshotReplayEngine replayEngine;
+
+    @Autowired
+    private SnapshotRetentionService retentionService;
+
+    @Autowired
+    private DebtTrendService debtTrendService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier(SchedulingConfig.REGENERATION_EXECUTOR)
+    private TaskExecutor executor;
+
+    /** 每个分段的天数 */
+    @Value("${loans.snapshot.regeneration.shard-days:90}")
+    private int shardDays;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 启动重新生成任务，已有任务在运行时抛出异常
+     * 锁内只登记任务，数据加载和分段都交给执行器，接口立即返回
+     */
+    public RegenerationProgress start() {
+        Job job = register();
+        submit(job);
+        return job.progress();
+    }
+    
+    /**
+     * 登记任务（只有ID和结束日期，分段在 prepare 中生成）
+     */
+    private synchronized Job register() {
+        for (Job job : jobs.values()) {
+            if (job.isActive()) {
+                throw new IllegalStateException("已有重新生成任务在运行: " + job.id);
+            }
+        }
+        removeFinishedJobs();
+
+        Job job = new Job(UUID.randomUUID().toString(), LocalDate.now());
+        jobs.put(job.id, job);
+        return job;
+    }
+    
+    /**
+     * 在执行器上加载数据、构建时间线并切分分段
+     * 续跑时只补上次结束日期之后到今天的分段，数据已变更时失败
+     */
+    private void prepare(Job job) {
+        if (job.cancelRequested) {
+            return;
+        }
+        String dataVersion = dataVersion();
+        if (job.dataVersion != null && !job.dataVersion.equals(dataVersion)) {
+            throw new IllegalStateException(STALE_DATA_MESSAGE);
+        }
+        job.dataVersion = dataVersion;
+
+        List<Loan> allLoans = loanMapper.findAll();
+        List<RepaymentSchedule> allSchedules = scheduleMapper.findAll();
+        job.timeline = replayEngine.timeline(allLoans, allSchedules, recordMapper.findAll());
+
+        LocalDate today = LocalDate.now();
+        if (job.shards == null) {
+            LocalDate earliestDate = replayEngine.earliestDate(allLoans, allSchedules);
+            if (allLoans.isEmpty()) {
+                // 没有贷款：不生成任何快照，收尾时删除全部旧快照
+                earliestDate = today.plusDays(1);
+            } else if (earliestDate == null || earliestDate.isAfter(today)) {
+                earliestDate = today;
+            }
+            job.startDate = earliestDate;
+            job.endDate = today;
+            job.shards = split(earliestDate, today);
+            logger.info("开始重新生成快照 {}: {} ~ {}，共 {} 段", job.id, earliestDate, today, job.shards.size());
+        } else if (today.isAfter(job.endDate)) {
+            List<Shard> shards = new ArrayList<>(job.shards);
+            shards.addAll(split(job.endDate.plusDays(1), today));
+            logger.info("快照重新生成任务 {} 的结束日期由 {} 延长到 {}", job.id, job.endDate, today);
+            job.shards = shards;
+            job.endDate = today;
+        }
+    }
+    
+    private List<Shard> split(LocalDate startDate, LocalDate endDate) {
+        List<Shard> shards = new ArrayList<>();
+        int days = Math.max(1, shardDays);
+        for (LocalDate from = startDate; !from.isAfter(endDate); from = from.plusDays(days)) {
+            LocalDate to = from.plusDays(days - 1);
+            shards.add(new Shard(from, to.isAfter(endDate) ? endDate : to));
+        }
+        return shards;
+    }
+    
+    /**
+     * 快照来源数据的版本（贷款、还款计划、还款记录），用于判断续跑时数据是否变更
+     */
+    private String dataVersion() {
+        return tableVersions.versionOf(DataTable.LOAN, DataTable.REPAYMENT_SCHEDULE, DataTable.PAYMENT_RECORD);
+    }
+
+    /**
+     * 查询任务进度，任务不存在时返回 null
+     */
+    public RegenerationProgress getProgress(String jobId) {
+        Job job = jobs.get(jobId);
+        return job != null ? job.progress() : null;
+    }
+
+    /**
+     * 取消任务：正在写入的分段会完成，尚未开始的分段跳过
+     */
+    public synchronized RegenerationProgress cancel(String jobId) {
+        Job job = requireJob(jobId);
+        if (job.isActive()) {
+            job.cancelRequested = true;
+            job.status = CANCELLING;
+        }
+        return job.progress();
+    }
+
+    /**
+     * 续跑已取消或失败任务中未完成的分段：重新加载时间线，结束日期延长到今天；
+     * 任务开始后来源数据有过写入时抛出异常
+     */
+    public RegenerationProgress resume(String jobId) {
+        Job job = prepareResume(jobId);
+        submit(job);
+        return job.progress();
+    }
+    
+    private synchronized Job prepareResume(String jobId) {
+        Job job = requireJob(jobId);
+        if (!CANCELLED.equals(job.status) && !FAILED.equals(job.status)) {
+            throw new IllegalStateException("只能续跑已取消或失败的任务，当前状态: " + job.status);
+        }
+        for (Job other : jobs.values()) {
+            if (other != job && other.isActive()) {
+                throw new IllegalStateException("已有重新生成任务在运行: " + other.id);
+            }
+        }
+        if (job.dataVersion != null && !job.dataVersion.equals(dataVersion())) {
+            throw new IllegalStateException(STALE_DATA_MESSAGE);
+        }
+        job.cancelRequested = false;
+        job.error = null;
+        job.finishedAt = null;
+        job.status = RUNNING;
+        logger.info("续跑快照重新生成任务 {}，剩余 {} 段", job.id, job.totalShards() - job.completedShards.get());
+        return job;
+    }
+
+    /**
+     * 交给执行器：先在执行器上准备（加载时间线、切分分段），再提交未完成的分段
+     * （不持有服务锁：执行器排队，取消、查询不受影响）
+     */
+    private void submit(Job job) {
+        CompletableFuture.runAsync(() -> prepare(job), executor)
+                .thenCompose(ignored -> runShards(job))
+                .whenComplete((ignored, error) -> finish(job, error));
+    }
+    
+    private CompletableFuture<Void> runShards(Job job) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        if (job.shards != null) {
+            for (Shard shard : job.shards) {
+                if (!shard.done) {
+                    futures.add(CompletableFuture.runAsync(() -> runShard(job, shard), executor));
+                }
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * 重放并在独立事务中写入一个分段
+     */
+    private void runShard(Job job, Shard shard) {
+        if (job.cancelRequested) {
+            return;
+        }
+        List<DebtSnapshot> daily = replayEngine.replay(job.timeline, shard.startDate, shard.endDate);
+        List<DebtSnapshot> retained = retentionService.retained(daily, job.endDate);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            snapshotMapper.deleteByDateRange(shard.startDate, shard.endDate);
+            for (int from = 0; from < retained.size(); from += INSERT_BATCH_SIZE) {
+                snapshotMapper.batchInsert(retained.subList(from, Math.min(from + INSERT_BATCH_SIZE, retained.size())));
+            }
+            eventPublisher.publishEvent(new DataChangedEvent(DataTable.DEBT_SNAPSHOT));
+        });
+
+        // 汇总需要完整的每日数据：本段完成即并入，不保留每日快照
+        job.rollups.add(daily);
+        shard.done = true;
+        job.completedShards.incrementAndGet();
+        job.rowsWritten.addAndGet(retained.size());
+    }
+
+    /**
+     * 所有分段结束后：全部完成则清理区间之前的旧快照并重建汇总
+     * 数据库操作不持有服务锁，只在锁内写入最终状态（与 cancel 互斥）
+     */
+    private void finish(Job job, Throwable error) {
+        try {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                logger.error("快照重新生成任务 {} 失败，已完成 {}/{} 段", job.id, job.completedShards.get(), job.totalShards(), cause);
+                end(job, FAILED, cause.getMessage());
+                return;
+            }
+            if (job.shards == null || job.completedShards.get() < job.shards.size()) {
+                logger.info("快照重新生成任务 {} 已取消，已完成 {}/{} 段", job.id, job.completedShards.get(), job.totalShards());
+                end(job, CANCELLED, null);
+                return;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                snapshotMapper.deleteBeforeDate(job.startDate);
+                debtTrendService.rebuildRollups(job.rollups);
+                eventPublisher.publishEvent(new DataChangedEvent(DataTable.DEBT_SNAPSHOT));
+            });
+            logger.info("快照重新生成任务 {} 完成，写入 {} 条", job.id, job.rowsWritten.get());
+            end(job, COMPLETED, null);
+        } catch (RuntimeException e) {
+            logger.error("快照重新生成任务 {} 收尾失败", job.id, e);
+            end(job, FAILED, e.getMessage());
+        }
+    }
+    
+    private synchronized void end(Job job, String status, String error) {
+        // 时间线在续跑时重新加载，结束后不再占用内存
+        job.timeline = null;
+        job.status = status;
+        job.error = error;
+        job.finishedAt = LocalDateTime.now();
+    }
+
+    private Job requireJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("任务不存在: " + jobId);
+        }
+        return job;
+    }
+
+    private void removeFinishedJobs() {
+        List<Job> finished = new ArrayList<>();
+        for (Job job : jobs.values()) {
+            if (!job.isActive()) {
+                finished.add(job);
+            }
+        }
+        finished.sort((a, b) -> a.startedAt.compareTo(b.startedAt));
+        Iterator<Job> it = finished.iterator();
+        while (finished.size() >= MAX_FINISHED_JOBS && it.hasNext()) {
+            jobs.remove(it.next().id);
+            it.remove();
+        }
+    }
+
+    /**
+     * 一个日期分段
+     */
+    private static class Shard {
+        final LocalDate startDate;
+        final LocalDate endDate;
+        volatile boolean done;
+
+        Shard(LocalDate startDate, LocalDate endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+    }
+
+    /**
+     * 重新生成任务
+     */
+    private static class Job {
+        final String id;
+        /** 最后一个快照日期，续跑时延长到当天 */
+        volatile LocalDate endDate;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        /** 最早快照日期，准备完成前为 null */
+        volatile LocalDate startDate;
+        /** 分段，准备完成前为 null */
+        volatile List<Shard> shards;
+        final AtomicInteger completedShards = new AtomicInteger();
+        final AtomicLong rowsWritten = new AtomicLong();
+        volatile SnapshotReplayEngine.Timeline timeline;
+        /** 加载时间线时来源数据的版本 */
+        volatile String dataVersion;
+        /** 已完成分段的周/月汇总 */
+        final DebtTrendService.RollupAccumulator rollups = new DebtTrendService.RollupAccumulator();
+        volatile String status = RUNNING;
+        volatile boolean cancelRequested;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        Job(String id, LocalDate endDate) {
+            this.id = id;
+            this.endDate = endDate;
+        }
+        
+        int totalShards() {
+            List<Shard> current = shards;
+            return current != null ? current.size() : 0;
+        }
+
+        boolean isActive() {
+            return RUNNING.equals(status) || CANCELLING.equals(status);
+        }
+
+        RegenerationProgress progress() {
+            RegenerationProgress progress = new RegenerationProgress();
+            progress.setJobId(id);
+            progress.setStatus(status);
+            progress.setStartDate(startDate);
+            progress.setEndDate(endDate);
+            progress.setTotalShards(totalShards());
+            progress.setCompletedShards(completedShards.get());
+            progress.setRowsWritten(rowsWritten.get());
+            progress.setStartedAt(startedAt);
+            progress.setFinishedAt(finishedAt);
+            progress.setError(error);
+            return progress;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.finance.loans.service;
+
+import com.finance.loans.model.DebtSnapshot;
+import com.finance.loans.model.Loan;
+import com.finance.loans.model.PaymentRecord;
+import com.finance.loans.model.RepaymentSchedule;
+import com.finance.loans.money.Money;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 快照重放引擎
+ *
+ * 把贷款、还款计划、还款记录一次性展开为按日期排序的状态变化事件，
+ * 再按天顺序扫描时间线累加，得到每一天当时的负债状态。
+ *
+ * 事件规则：
+ * - 开始日（首期还款日与第一期应还日中较早者）：计入本金；active/completed 贷款同时计入活跃数、月还款、全部应还金额
+ * - 每期还款日（paid_date，缺失时取还款记录日期，再缺失取应还日期）：计入已还金额，扣减剩余金额
+ * - 结清日（completed 贷款最后一次还款日）：活跃数转为结清数，扣减月还款及仍未还的金额
+ */
+@Component
+public class SnapshotReplayEngine {
+
+    /** 同一天内事件的处理顺序 */
+    private static final int ORDER_OPEN = 0;
+    private static final int ORDER_PAYMENT = 1;
+    private static final int ORDER_COMPLETE = 2;
+
+    /**
+     * 重放指定日期区间（含首尾）的每日快照
+     */
+    public List<DebtSnapshot> replay(List<Loan> loans, List<RepaymentSchedule> schedules,
+                                     List<PaymentRecord> records, LocalDate startDate, LocalDate endDate) {
+        return replay(timeline(loans, schedules, records), startDate, endDate);
+    }
+
+    /**
+     * 构建事件时间线，分段重放时只构建一次，各段共用（时间线只读，可以并发重放）
+     */
+    public Timeline timeline(List<Loan> loans, List<RepaymentSchedule> schedules, List<PaymentRecord> records) {
+        return new Timeline(buildTimeline(loans, schedules, records));
+    }
+
+    /**
+     * 在已构建的时间线上重放指定日期区间（含首尾）的每日快照
+     */
+    public List<DebtSnapshot> replay(Timeline timeline, LocalDate startDate, LocalDate endDate) {
+        List<Event> events = timeline.events;
+
+        List<DebtSnapshot> snapshots = new ArrayList<>();
+        if (startDate.isAfter(endDate)) {
+            return snapshots;
+        }
+
+        State state = new State();
+        int cursor = 0;
+
+        // 先应用区间开始之前的所有事件
+        while (cursor < events.size() && events.get(cursor).date.isBefore(startDate)) {
+            state.apply(events.get(cursor++));
+        }
+
+        LocalDate currentDate = startDate;
+        while (!currentDate.isAfter(endDate)) {
+            while (cursor < events.size() && !events.get(cursor).date.isAfter(currentDate)) {
+                state.apply(events.get(cursor++));
+            }
+            snapshots.add(state.toSnapshot(currentDate, snapshotTypeOf(currentDate)));
+            currentDate = currentDate.plusDays(1);
+        }
+
+        return snapshots;
+    }
+
+    /**
+     * 计算最早的重放起始日期，没有贷款时返回 null
+     */
+    public LocalDate earliestDate(List<Loan> loans, List<RepaymentSchedule> schedules) {
+        LocalDate earliest = null;
+        for (Loan loan : loans) {
+            if (loan.getStartDate() != null && (earliest == null || loan.getStartDate().isBefore(earliest))) {
+                earliest = loan.getStartDate();
+            }
+        }
+        for (RepaymentSchedule schedule : schedules) {
+            if (schedule.getDueDate() != null && (earliest == null || schedule.getDueDate().isBefore(earliest))) {
+                earliest = schedule.getDueDate();
+            }
+        }
+        return earliest;
+    }
+
+    /**
+     * 快照类型：每月1号为月快照，每周一为周快照，其余为日快照
+     */
+    public static String snapshotTypeOf(LocalDate date) {
+        if (date.getDayOfMonth() == 1) {
+            return "monthly";
+        }
+        if (date.getDayOfWeek().getValue() == 1) {
+            return "weekly";
+        }
+        return "daily";
+    }
+
+    /**
+     * 构建按日期排序的事件时间线
+     */
+    private List<Event> buildTimeline(List<Loan> loans, List<RepaymentSchedule> schedules,
+                                      List<PaymentRecord> records) {
+        // 还款记录中每个计划最早的还款日期，用于补全缺失的 paid_date
+        Map<Long, LocalDate> recordDates = new HashMap<>();
+        for (PaymentRecord record : records) {
+            if (record.getScheduleId() == null || record.getPaymentDate() == null) {
+                continue;
+            }
+            recordDates.merge(record.getScheduleId(), record.getPaymentDate(),
+                    (a, b) -> a.isBefore(b) ? a : b);
+        }
+
+        Map<Long, List<RepaymentSchedule>> schedulesByLoan = new HashMap<>();
+        for (RepaymentSchedule schedule : schedules) {
+            schedulesByLoan.computeIfAbsent(schedule.getLoanId(), k -> new ArrayList<>()).add(schedule);
+        }
+
+        List<Event> timeline = new ArrayList<>();
+        for (Loan loan : loans) {
+            List<RepaymentSchedule> loanSchedules = schedulesByLoan.getOrDefault(loan.getId(), new ArrayList<>());
+            addLoanEvents(timeline, loan, loanSchedules, recordDates);
+        }
+
+        timeline.sort(Comparator.comparing((Event e) -> e.date).thenComparingInt(e -> e.order));
+        return timeline;
+    }
+
+    private void addLoanEvents(List<Event> timeline, Loan loan, List<RepaymentSchedule> loanSchedules,
+                               Map<Long, LocalDate> recordDates) {
+        LocalDate openDate = loan.getStartDate();
+        for (RepaymentSchedule schedule : loanSchedules) {
+            if (schedule.getDueDate() != null && (openDate == null || schedule.getDueDate().isBefore(openDate))) {
+                openDate = schedule.getDueDate();
+            }
+        }
+        if (openDate == null) {
+            return;
+        }
+
+        boolean tracked = "active".equals(loan.getStatus()) || "completed".equals(loan.getStatus());
+        long monthly = Money.toCents(loan.getMonthlyAmount());
+
+        Event open = new Event(openDate, ORDER_OPEN);
+        open.principal = Money.toCents(loan.getPrincipal());
+        if (tracked) {
+            open.activeLoans = 1;
+            open.monthlyPayment = monthly;
+        }
+        timeline.add(open);
+
+        long unpaidTotal = 0;
+        LocalDate lastPaidDate = openDate;
+        for (RepaymentSchedule schedule : loanSchedules) {
+            long amount = Money.toCents(schedule.getAmount());
+            if (tracked) {
+                open.remainingAmount = Math.addExact(open.remainingAmount, amount);
+            }
+
+            if (!"paid".equals(schedule.getStatus())) {
+                unpaidTotal = Math.addExact(unpaidTotal, amount);
+                continue;
+            }
+
+            LocalDate paidDate = schedule.getPaidDate();
+            if (paidDate == null) {
+                paidDate = recordDates.get(schedule.getId());
+            }
+            if (paidDate == null) {
+                paidDate = schedule.getDueDate();
+            }
+            if (paidDate == null || paidDate.isBefore(openDate)) {
+                paidDate = openDate;
+            }
+            if (paidDate.isAfter(lastPaidDate)) {
+                lastPaidDate = paidDate;
+            }
+
+            Event payment = new Event(paidDate, ORDER_PAYMENT);
+            payment.paidAmount = schedule.getPaidAmount() != null ? Money.toCents(schedule.getPaidAmount()) : amount;
+            if (tracked) {
+                payment.remainingAmount = -amount;
+            }
+            timeline.add(payment);
+        }
+
+        if ("completed".equals(loan.getStatus())) {
+            Event complete = new Event(lastPaidDate, ORDER_COMPLETE);
+            complete.activeLoans = -1;
+            complete.completedLoans = 1;
+            complete.monthlyPayment = -monthly;
+            complete.remainingAmount = -unpaidTotal;
+            timeline.add(complete);
+        }
+    }
+
+    /**
+     * 按日期排序的事件时间线
+     */
+    public static final class Timeline {
+        private final List<Event> events;
+
+        private Timeline(List<Event> events) {
+            this.events = events;
+        }
+    }
+
+    /**
+     * 状态变化事件（各字段为增量，金额以分为单位）
+     */
+    private static class Event {
+        final LocalDate date;
+        final int order;
+        long principal;
+        long paidAmount;
+        long remainingAmount;
+        long monthlyPayment;
+        int activeLoans;
+        int completedLoans;
+
+        Event(LocalDate date, int order) {
+            this.date = date;
+            this.order = order;
+        }
+    }
+
+    /**
+     * 扫描过程中的累计状态（金额以分为单位，应用事件时不产生对象，只在输出快照时转换）
+     */
+    private static class State {
+        long principal;
+        long paidAmount;
+        long remainingAmount;
+        long monthlyPayment;
+        int activeLoans;
+        int completedLoans;
+
+        void apply(Event event) {
+            principal = Math.addExact(principal, event.principal);
+            paidAmount = Math.addExact(paidAmount, event.paidAmount);
+            remainingAmount = Math.addExact(remainingAmount, event.remainingAmount);
+            monthlyPayment = Math.addExact(monthlyPayment, event.monthlyPayment);
+            activeLoans += event.activeLoans;
+            completedLoans += event.completedLoans;
+        }
+
+        DebtSnapshot toSnapshot(LocalDate date, String type) {
+            DebtSnapshot snapshot = new DebtSnapshot();
+            snapshot.setSnapshotDate(date);
+            BigDecimal remaining = Money.toBigDecimal(remainingAmount);
+            snapshot.setTotalDebt(remaining);
+            snapshot.setTotalPrincipal(Money.toBigDecimal(principal));
+            snapshot.setPaidAmount(Money.toBigDecimal(paidAmount));
+            snapshot.setRemainingAmount(remaining);
+            snapshot.setActiveLoans(activeLoans);
+            snapshot.setCompletedLoans(completedLoans);
+            snapshot.setMonthlyPayment(Money.toBigDecimal(monthlyPayment));
+            snapshot.setSnapshotType(type);
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.finance.loans.service;
+
+import com.finance.loans.config.SchedulingConfig;
+import com.finance.loans.event.DataChangedEvent;
+import com.finance.loans.event.DataTable;
+import com.finance.loans.mapper.DebtSnapshotMapper;
+import com.finance.loans.model.DebtSnapshot;
+import com.finance.loans.model.TablePartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 负债快照保留策略
+ *
+ * - 每日快照保留 daily-days 天，更早的只保留每周、每月各一条（weekly / monthly 类型）
+ * - 周快照保留 weekly-days 天，更早的只保留月快照
+ * - 超过 retention-months 个月的整月数据直接删除分区；长期趋势由 debt_snapshot_rollup 中的周/月汇总提供
+ *
+ * 表未按迁移 004 分区时，过期数据退回为按日期逐行删除。
+ */
+@Service
+public class SnapshotRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotRetentionService.class);
+
+    /** 兜底分区名 */
+    private static final String FUTURE_PARTITION = "p_future";
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    /** 当前周、当前月的汇总依赖完整的每日快照，每日快照至少保留这么多天 */
+    private static final int MIN_DAILY_DAYS = 31;
+
+    @Autowired
+    private DebtSnapshotMapper snapshotMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /** 每日快照保留天数 */
+    @Value("${loans.snapshot.retention.daily-days:90}")
+    private int dailyDays;
+
+    /** 周快照保留天数 */
+    @Value("${loans.snapshot.retention.weekly-days:730}")
+    private int weeklyDays;
+
+    /** 整月分区保留月数，0 表示不删除 */
+    @Value("${loans.snapshot.retention.retention-months:36}")
+    private int retentionMonths;
+
+    /** 提前创建的未来月份分区数 */
+    @Value("${loans.snapshot.retention.months-ahead:3}")
+    private int monthsAhead;
+
+    /**
+     * 每天凌晨在快照创建之后执行保留策略
+     */
+    @Scheduled(cron = "${loans.snapshot.retention.cron:0 30 0 * * ?}")
+    @Async(SchedulingConfig.SNAPSHOT_EXECUTOR)
+    public void scheduledRetention() {
+        try {
+            Map<String, Object> result = applyRetention(LocalDate.now());
+            logger.info("快照保留任务完成: {}", result);
+        } catch (Exception e) {
+            logger.error("快照保留任务失败", e);
+        }
+    }
+
+    /**
+     * 执行保留策略：先压缩旧的日/周快照（一个事务），再维护分区（DDL 会隐式提交，不放在事务内）
+     */
+    public Map<String, Object> applyRetention(LocalDate today) {
+        LocalDate dailyCutoff = dailyCutoff(today);
+        LocalDate weeklyCutoff = weeklyCutoff(today);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("dailyCutoff", dailyCutoff);
+        result.put("weeklyCutoff", weeklyCutoff);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // 先给每个月、每周留下一条代表快照，再删除其余日快照；
+            // 之前的运行已删掉截止日前的日快照，只需从最早的剩余日快照所在的月/周开始分组
+            LocalDate earliestDaily = snapshotMapper.findEarliestDateBeforeDate("daily", dailyCutoff);
+            if (earliestDaily == null) {
+                result.put("monthlyMarked", 0);
+                result.put("weeklyMarked", 0);
+            } else {
+                result.put("monthlyMarked",
+                        snapshotMapper.markMonthlyBetween(earliestDaily.withDayOfMonth(1), dailyCutoff));
+                result.put("weeklyMarked",
+                        snapshotMapper.markWeeklyBetween(earliestDaily.with(DayOfWeek.MONDAY), dailyCutoff));
+            }
+            result.put("dailyDeleted", snapshotMapper.deleteTypeBeforeDate("daily", dailyCutoff));
+            result.put("weeklyDeleted", snapshotMapper.deleteTypeBeforeDate("weekly", weeklyCutoff));
+        });
+
+        managePartitions(today, result);
+        eventPublisher.publishEvent(new DataChangedEvent(DataTable.DEBT_SNAPSHOT));
+        return result;
+    }
+
+    /**
+     * 此日期之前只保留周/月快照
+     */
+    public LocalDate dailyCutoff(LocalDate today) {
+        return today.minusDays(Math.max(MIN_DAILY_DAYS, dailyDays));
+    }
+
+    /**
+     * 此日期之前只保留月快照
+     */
+    public LocalDate weeklyCutoff(LocalDate today) {
+        LocalDate cutoff = today.minusDays(Math.max(0, weeklyDays));
+        LocalDate dailyCutoff = dailyCutoff(today);
+        return cutoff.isAfter(dailyCutoff) ? dailyCutoff : cutoff;
+    }
+
+    /**
+     * 此日期之前的整月数据随分区删除，不删除时返回 null
+     */
+    public LocalDate retentionHorizon(LocalDate today) {
+        if (retentionMonths <= 0) {
+            return null;
+        }
+        return today.withDayOfMonth(1).minusMonths(retentionMonths);
+    }
+
+    /**
+     * 按保留策略过滤快照（重新生成历史快照时只写入会被保留的行）
+     */
+    public List<DebtSnapshot> retained(List<DebtSnapshot> snapshots, LocalDate today) {
+        LocalDate dailyCutoff = dailyCutoff(today);
+        LocalDate weeklyCutoff = weeklyCutoff(today);
+        LocalDate horizon = retentionHorizon(today);
+
+        List<DebtSnapshot> result = new ArrayList<>();
+        for (DebtSnapshot snapshot : snapshots) {
+            LocalDate date = snapshot.getSnapshotDate();
+            if (horizon != null && date.isBefore(horizon)) {
+                continue;
+            }
+            if ("daily".equals(snapshot.getSnapshotType()) && date.isBefore(dailyCutoff)) {
+                continue;
+            }
+            if ("weekly".equals(snapshot.getSnapshotType()) && date.isBefore(weeklyCutoff)) {
+                continue;
+            }
+            result.add(snapshot);
+        }
+        return result;
+    }
+
+    /**
+     * 补齐未来月份分区，删除过期分区
+     */
+    private void managePartitions(LocalDate today, Map<String, Object> result) {
+        LocalDate horizon = retentionHorizon(today);
+        List<TablePartition> partitions = snapshotMapper.findPartitions();
+
+        if (partitions.isEmpty()) {
+            // 未分区：退回为逐行删除
+            result.put("partitioned", false);
+            result.put("expiredDeleted", horizon != null ? snapshotMapper.deleteBeforeDate(horizon) : 0);
+            return;
+        }
+        result.put("partitioned", true);
+
+        // 删除上界不晚于保留起点的分区（整月都已过期）
+        List<String> dropped = new ArrayList<>();
+        LocalDate lastBound = null;
+        for (TablePartition partition : partitions) {
+            LocalDate bound = boundOf(partition);
+            if (bound == null) {
+                continue;
+            }
+            if (horizon != null && !bound.isAfter(horizon)) {
+                snapshotMapper.dropPartition(partition.getPartitionName());
+                dropped.add(partition.getPartitionName());
+            }
+            if (lastBound == null || bound.isAfter(lastBound)) {
+                lastBound = bound;
+            }
+        }
+
+        // 从 p_future 拆出到 months-ahead 个月之后为止的每月分区
+        List<String> added = new ArrayList<>();
+        boolean hasFuture = partitions.stream().anyMatch(p -> FUTURE_PARTITION.equals(p.getPartitionName()));
+        if (hasFuture) {
+            YearMonth month = lastBound != null ? YearMonth.from(lastBound) : YearMonth.from(today);
+            YearMonth until = YearMonth.from(today).plusMonths(Math.max(0, monthsAhead));
+            while (!month.isAfter(until)) {
+                String name = month.atDay(1).format(PARTITION_NAME);
+                snapshotMapper.addPartition(name, month.plusMonths(1).atDay(1).toString());
+                added.add(name);
+                month = month.plusMonths(1);
+            }
+        }
+
+        result.put("partitionsDropped", dropped);
+        result.put("partitionsAdded", added);
+        if (!dropped.isEmpty() || !added.isEmpty()) {
+            logger.info("快照分区维护: 删除 {}，新增 {}", dropped, added);
+        }
+    }
+
+    /**
+     * 解析分区上界，MAXVALUE 返回 null
+     */
+    private static LocalDate boundOf(TablePartition partition) {
+        String lessThan = partition.getLessThan();
+        if (lessThan == null || "MAXVALUE".equalsIgnoreCase(lessThan)) {
+            return null;
+        }
+        return LocalDate.parse(lessThan.replace("'", "").trim());
+    }
+}
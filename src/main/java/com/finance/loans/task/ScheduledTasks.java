@@ -1,9 +1,11 @@
 package com.finance.loans.task;
 
+import com.finance.loans.config.SchedulingConfig;
 import com.finance.loans.service.RepaymentScheduleService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -22,6 +24,7 @@ public class ScheduledTasks {
      * 每天晚上21:00自动标记当天应还款项为已还
      */
     @Scheduled(cron = "0 0 21 * * ?")
+    @Async(SchedulingConfig.SETTLEMENT_EXECUTOR)
     public void autoMarkTodayAsPaid() {
         logger.info("开始执行定时任务：标记当天应还款项为已还");
         try {
@@ -31,4 +34,19 @@ public class ScheduledTasks {
             logger.error("定时任务执行失败", e);
         }
     }
+    
+    /**
+     * 每天00:05把应还日期已过的待还计划标记为逾期
+     */
+    @Scheduled(cron = "${loans.overdue.cron:0 5 0 * * ?}")
+    @Async(SchedulingConfig.SETTLEMENT_EXECUTOR)
+    public void markOverdue() {
+        logger.info("开始执行定时任务：标记逾期还款计划");
+        try {
+            int count = scheduleService.markOverdue();
+            logger.info("定时任务执行成功，标记了 {} 笔逾期", count);
+        } catch (Exception e) {
+            logger.error("逾期标记任务执行失败", e);
+        }
+    }
 }
@@ -0,0 +1,136 @@
+package com.finance.loans.task;
+
+import com.finance.loans.cache.ScheduleIndex;
+import com.finance.loans.service.DebtSnapshotService;
+import com.finance.loans.service.LoanService;
+import com.finance.loans.service.RepaymentScheduleService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 启动预热
+ *
+ * 在 ApplicationRunner 阶段依次建立连接池的最小空闲连接、标记停机期间到期的逾期计划、加载还款计划索引、
+ * 预加载首页用到的缓存（贷款统计、活跃贷款、本月与下月还款计划、最新快照），
+ * 顺带完成 MyBatis 语句解析和 MySQL 缓冲池预热。Spring Boot 在所有 ApplicationRunner 结束后
+ * 才把就绪状态切换为 ACCEPTING_TRAFFIC，因此预热完成前 /actuator/health/readiness 返回 OUT_OF_SERVICE。
+ * 每个阶段记录为一个 StartupStep（配合 BufferingApplicationStartup 在 /actuator/startup 查看），并输出耗时时间线。
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+
+    /** 是否预加载缓存（连接池、逾期标记与还款计划索引始终在此阶段执行） */
+    @Value("${loans.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private ConfigurableApplicationContext applicationContext;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ScheduleIndex scheduleIndex;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private RepaymentScheduleService scheduleService;
+
+    @Autowired
+    private DebtSnapshotService snapshotService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Map<String, Long> timeline = new LinkedHashMap<>();
+        long start = System.nanoTime();
+
+        phase(timeline, "connection-pool", this::primeConnectionPool);
+        phase(timeline, "overdue-sweep", scheduleService::markOverdue);
+        phase(timeline, "schedule-index", scheduleIndex::reload);
+        if (enabled) {
+            YearMonth month = YearMonth.now();
+            phase(timeline, "loan-summary", loanService::getLoanSummary);
+            phase(timeline, "active-loans", loanService::getActiveLoans);
+            phase(timeline, "month-schedules", () -> {
+                scheduleService.getMonthSchedules(month.getYear(), month.getMonthValue());
+                YearMonth next = month.plusMonths(1);
+                scheduleService.getMonthSchedules(next.getYear(), next.getMonthValue());
+            });
+            phase(timeline, "latest-snapshot", snapshotService::getLatestSnapshot);
+        }
+
+        List<String> steps = new ArrayList<>();
+        timeline.forEach((name, millis) -> steps.add(name + "=" + millis + "ms"));
+        logger.info("启动预热完成，耗时 {} ms [{}]，JVM 启动至就绪 {} ms",
+                (System.nanoTime() - start) / 1_000_000, String.join(", ", steps),
+                ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    /**
+     * 执行一个预热阶段，失败只记录日志，不阻止启动（对应查询会在首次请求时再加载）
+     */
+    private void phase(Map<String, Long> timeline, String name, Runnable action) {
+        StartupStep step = applicationContext.getApplicationStartup().start("loans.warmup." + name);
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } catch (Exception e) {
+            step.tag("error", String.valueOf(e.getMessage()));
+            logger.warn("启动预热阶段 {} 失败", name, e);
+        } finally {
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            timeline.put(name, millis);
+            step.tag("millis", String.valueOf(millis));
+            step.end();
+        }
+    }
+
+    /**
+     * 同时借出 minimum-idle 个连接并校验，使连接池在就绪前建立好全部最小空闲连接
+     */
+    private void primeConnectionPool() {
+        int count = dataSource instanceof HikariDataSource hikari ? Math.max(hikari.getMinimumIdle(), 1) : 1;
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                if (!connection.isValid(5)) {
+                    throw new IllegalStateException("数据库连接校验失败");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("连接池预热失败", e);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.warn("归还预热连接失败", e);
+                }
+            }
+        }
+    }
+}
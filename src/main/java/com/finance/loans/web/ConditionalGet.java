@@ -0,0 +1,24 @@
+package com.finance.loans.web;
+
+import com.finance.loans.event.DataTable;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记 GET 接口的返回内容只依赖指定的数据表
+ *
+ * {@link ConditionalRequestInterceptor} 据此用表版本号生成 ETag，
+ * 请求带有匹配的 If-None-Match 时直接返回 304，不调用接口方法。
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalGet {
+    
+    /** 返回内容依赖的数据表 */
+    DataTable[] value();
+}
@@ -0,0 +1,74 @@
+package com.finance.loans.web;
+
+import com.finance.loans.cache.TableVersions;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.LocalDate;
+
+/**
+ * 条件请求拦截器
+ *
+ * 对标注了 {@link ConditionalGet} 的 GET 接口，用依赖表的版本号加当天日期生成强 ETag：
+ * If-None-Match 命中时直接返回 304，不访问数据库；否则把 ETag 存入请求属性后继续处理，
+ * 由 {@link ConditionalResponseAdvice} 只给 2xx 响应写入 ETag 和 Cache-Control。
+ * ETag 在调用接口前计算，保证它不会比返回的数据更新。
+ * 日期参与计算是因为本月计划、逾期状态等内容会随日期变化。
+ */
+@Component
+public class ConditionalRequestInterceptor implements HandlerInterceptor {
+    
+    /** 存放本次请求 ETag 的请求属性名 */
+    static final String ETAG_ATTRIBUTE = ConditionalRequestInterceptor.class.getName() + ".etag";
+    
+    /** 浏览器可以保存响应，但每次使用前都要带 If-None-Match 重新验证 */
+    static final String CACHE_CONTROL = "private, no-cache";
+    
+    @Autowired
+    private TableVersions tableVersions;
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        ConditionalGet conditional = ((HandlerMethod) handler).getMethodAnnotation(ConditionalGet.class);
+        if (conditional == null) {
+            return true;
+        }
+        
+        String etag = "\"" + tableVersions.versionOf(conditional.value()) + "-" + LocalDate.now() + "\"";
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        return true;
+    }
+    
+    /**
+     * If-None-Match 按弱比较匹配（压缩时服务器可能把强 ETag 改为 W/ 前缀的弱 ETag）
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,47 @@
+package com.finance.loans.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 给条件请求的成功响应写入 ETag
+ *
+ * {@link ConditionalRequestInterceptor} 在调用接口前算好 ETag，这里只在响应状态为 2xx 时写入，
+ * 参数错误、不存在等响应不带 ETag，客户端不会用它们发起条件请求。
+ */
+@ControllerAdvice
+public class ConditionalResponseAdvice implements ResponseBodyAdvice<Object> {
+    
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(ConditionalGet.class);
+    }
+    
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest) || !(response instanceof ServletServerHttpResponse)) {
+            return body;
+        }
+        HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+        HttpServletResponse servletResponse = ((ServletServerHttpResponse) response).getServletResponse();
+        Object etag = servletRequest.getAttribute(ConditionalRequestInterceptor.ETAG_ATTRIBUTE);
+        int status = servletResponse.getStatus();
+        if (etag != null && status >= 200 && status < 300) {
+            response.getHeaders().set(HttpHeaders.ETAG, etag.toString());
+            response.getHeaders().set(HttpHeaders.CACHE_CONTROL, ConditionalRequestInterceptor.CACHE_CONTROL);
+        }
+        return body;
+    }
+}
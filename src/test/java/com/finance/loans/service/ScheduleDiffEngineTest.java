@@ -0,0 +1,187 @@
+package com.finance.loans.service;
+
+import com.finance.loans.model.RepaymentSchedule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 还款计划差异引擎测试
+ */
+class ScheduleDiffEngineTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 15);
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1000.00");
+
+    private final ScheduleDiffEngine engine = new ScheduleDiffEngine();
+
+    @Test
+    void unchangedScheduleProducesNoChanges() {
+        List<RepaymentSchedule> existing = existing(6, 2);
+
+        ScheduleDiffEngine.Diff diff = engine.diff(existing, target(6, START, AMOUNT, 2));
+
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    void amountChangeUpdatesOnlyUnpaidPeriods() {
+        List<RepaymentSchedule> existing = existing(6, 2);
+
+        ScheduleDiffEngine.Diff diff = engine.diff(existing, target(6, START, new BigDecimal("1200"), 2));
+
+        assertEquals(4, diff.getUpdates().size());
+        assertTrue(diff.getInserts().isEmpty());
+        assertTrue(diff.getDeletes().isEmpty());
+        for (RepaymentSchedule updated : diff.getUpdates()) {
+            assertTrue(updated.getPeriod() > 2);
+            assertEquals(0, new BigDecimal("1200").compareTo(updated.getAmount()));
+            assertEquals("pending", updated.getStatus());
+        }
+        assertEquals(existing.subList(2, 6), diff.getPrevious());
+    }
+
+    @Test
+    void amountComparisonIgnoresScale() {
+        List<RepaymentSchedule> existing = existing(3, 0);
+
+        ScheduleDiffEngine.Diff diff = engine.diff(existing, target(3, START, new BigDecimal("1000"), 0));
+
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    void unchangedDueDateKeepsOverdueStatus() {
+        List<RepaymentSchedule> existing = existing(3, 0);
+        existing.get(0).setStatus("overdue");
+
+        // 目标计划按日期把第 1 期算作已还，但应还日期没变，保留逾期
+        List<RepaymentSchedule> target = target(3, START, new BigDecimal("900"), 1);
+        ScheduleDiffEngine.Diff diff = engine.diff(existing, target);
+
+        RepaymentSchedule first = diff.getUpdates().get(0);
+        assertEquals(1, first.getPeriod());
+        assertEquals("overdue", first.getStatus());
+        assertNull(first.getPaidDate());
+        assertNull(first.getPaidAmount());
+    }
+
+    @Test
+    void shiftedDueDateTakesTargetStatus() {
+        List<RepaymentSchedule> existing = existing(3, 0);
+        existing.get(0).setStatus("overdue");
+
+        List<RepaymentSchedule> target = target(3, START.minusMonths(1), AMOUNT, 1);
+        ScheduleDiffEngine.Diff diff = engine.diff(existing, target);
+
+        assertEquals(3, diff.getUpdates().size());
+        RepaymentSchedule first = diff.getUpdates().get(0);
+        assertEquals(START.minusMonths(1), first.getDueDate());
+        assertEquals("paid", first.getStatus());
+        assertEquals(first.getDueDate(), first.getPaidDate());
+        assertEquals("pending", diff.getUpdates().get(1).getStatus());
+    }
+
+    @Test
+    void paidPeriodsAreNeverUpdated() {
+        List<RepaymentSchedule> existing = existing(4, 2);
+
+        ScheduleDiffEngine.Diff diff = engine.diff(existing, target(4, START.plusMonths(1), AMOUNT, 0));
+
+        assertEquals(2, diff.getUpdates().size());
+        for (RepaymentSchedule updated : diff.getUpdates()) {
+            assertTrue(updated.getPeriod() > 2);
+        }
+    }
+
+    @Test
+    void updatesCarryReadVersion() {
+        List<RepaymentSchedule> existing = existing(2, 0);
+        existing.get(1).setVersion(7);
+
+        ScheduleDiffEngine.Diff diff = engine.diff(existing, target(2, START, new BigDecimal("1100"), 0));
+
+        assertEquals(existing.get(1).getId(), diff.getUpdates().get(1).getId());
+        assertEquals(7, diff.getUpdates().get(1).getVersion());
+    }
+
+    @Test
+    void longerTermInsertsNewPeriods() {
+        List<RepaymentSchedule> existing = existing(3, 1);
+
+        ScheduleDiffEngine.Diff diff = engine.diff(existing, target(5, START, AMOUNT, 1));
+
+        assertTrue(diff.getUpdates().isEmpty());
+        assertTrue(diff.getDeletes().isEmpty());
+        assertEquals(2, diff.getInserts().size());
+        assertEquals(4, diff.getInserts().get(0).getPeriod());
+        assertEquals(5, diff.getInserts().get(1).getPeriod());
+        assertNull(diff.getInserts().get(0).getId());
+    }
+
+    @Test
+    void shorterTermDeletesUnpaidPeriods() {
+        List<RepaymentSchedule> existing = existing(5, 2);
+
+        ScheduleDiffEngine.Diff diff = engine.diff(existing, target(3, START, AMOUNT, 2));
+
+        assertTrue(diff.getUpdates().isEmpty());
+        assertTrue(diff.getInserts().isEmpty());
+        assertEquals(2, diff.getDeletes().size());
+        assertTrue(diff.getDeleteIds().contains(104L));
+        assertTrue(diff.getDeleteIds().contains(105L));
+    }
+
+    @Test
+    void shorterTermThanPaidPeriodsIsRejected() {
+        List<RepaymentSchedule> existing = existing(5, 4);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> engine.diff(existing, target(3, START, AMOUNT, 3)));
+        assertTrue(e.getMessage().contains("第 4 期已还"));
+    }
+
+    /**
+     * 现有计划：ID 为 101 起，前 paidPeriods 期已还，其余待还
+     */
+    private static List<RepaymentSchedule> existing(int periods, int paidPeriods) {
+        List<RepaymentSchedule> schedules = target(periods, START, AMOUNT, paidPeriods);
+        for (RepaymentSchedule schedule : schedules) {
+            schedule.setId(100L + schedule.getPeriod());
+            schedule.setVersion(0);
+        }
+        return schedules;
+    }
+
+    /**
+     * 目标计划：每月同一天应还，前 paidPeriods 期按已还计算（与 LoanService.buildRepaymentSchedule 一致）
+     */
+    private static List<RepaymentSchedule> target(int periods, LocalDate start, BigDecimal amount, int paidPeriods) {
+        List<RepaymentSchedule> schedules = new ArrayList<>();
+        for (int period = 1; period <= periods; period++) {
+            RepaymentSchedule schedule = new RepaymentSchedule();
+            schedule.setLoanId(1L);
+            schedule.setPeriod(period);
+            schedule.setDueDate(start.plusMonths(period - 1));
+            schedule.setAmount(amount);
+            if (period <= paidPeriods) {
+                schedule.setStatus("paid");
+                schedule.setPaidDate(schedule.getDueDate());
+                schedule.setPaidAmount(amount);
+            } else {
+                schedule.setStatus("pending");
+            }
+            schedules.add(schedule);
+        }
+        return schedules;
+    }
+}